@@ -0,0 +1,168 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * ExecuteAllCheck — проверка пакетного вызова {@link ReflectionExecutor#executeAll(Stream, RepeatSink)}
+ * на параллельном потоке (и для сравнения — варианта с коллекцией)
+ *
+ * Объекты двух классов вперемешку с null обрабатываются параллельно; приёмник записывает
+ * каждый вызов. Проверяется, что:
+ *  - возвращено количество объектов без null, и каждый объект обработан;
+ *  - у каждого объекта вызваны все методы {@link Repeat} нужное число раз, без повторов и пропусков,
+ *    ошибки метода попадают в {@link RepeatSink#failed}, а результаты — в {@link RepeatSink#invoked};
+ *  - повторы метода у одного объекта идут по порядку номеров, методы объекта не перемежаются,
+ *    все вызовы объекта выполняются в одном потоке, а порядок методов у всех объектов класса один
+ *
+ * Запуск из каталога lab2:
+ *   javac -encoding UTF-8 -d out src/*.java checks/ExecuteAllCheck.java
+ *   java -cp out ExecuteAllCheck
+ * При ошибке процесс завершается с кодом 1
+ */
+public final class ExecuteAllCheck {
+
+    private static final int OBJECTS = 20_000;
+
+    /**
+     * Ожидаемые методы классов: имя -> количество повторов
+     */
+    private static final Map<Class<?>, Map<String, Integer>> EXPECTED = Map.of(
+            Counter.class, Map.of("increment", 3, "fail", 2),
+            Gauge.class, Map.of("read", 4));
+
+    public static void main(String[] args) {
+        List<Object> targets = new ArrayList<>(OBJECTS + OBJECTS / 10);
+        for (int i = 0; i < OBJECTS; i++) {
+            targets.add(i % 3 == 0 ? new Gauge() : new Counter());
+            if (i % 10 == 0) targets.add(null);
+        }
+
+        Recorder fromStream = new Recorder();
+        long streamed = ReflectionExecutor.executeAll(targets.stream(), fromStream);
+        expect(streamed == OBJECTS, "поток: обработано " + streamed + " объектов из " + OBJECTS);
+        fromStream.verify(targets);
+
+        Recorder fromCollection = new Recorder();
+        long collected = ReflectionExecutor.executeAll(targets, fromCollection);
+        expect(collected == OBJECTS, "коллекция: обработано " + collected + " объектов из " + OBJECTS);
+        fromCollection.verify(targets);
+
+        System.out.println("ExecuteAllCheck: OK (объектов " + OBJECTS + ", потоков: " + fromStream.threads.size() + ")");
+    }
+
+    private static void expect(boolean condition, String message) {
+        if (!condition) throw new AssertionError(message);
+    }
+
+    /**
+     * Один записанный вызов
+     */
+    private static final class Call {
+        final String method;
+        final int repeatIndex;
+        final boolean failed;
+        final Thread thread;
+
+        Call(String method, int repeatIndex, boolean failed, Thread thread) {
+            this.method = method;
+            this.repeatIndex = repeatIndex;
+            this.failed = failed;
+            this.thread = thread;
+        }
+
+        @Override
+        public String toString() {
+            return method + "#" + repeatIndex + (failed ? " (ошибка)" : "");
+        }
+    }
+
+    /**
+     * Приёмник, который записывает вызовы каждого объекта в порядке поступления
+     */
+    private static final class Recorder implements RepeatSink {
+
+        private final Map<Object, List<Call>> calls = Collections.synchronizedMap(new IdentityHashMap<>());
+        private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void invoked(Object target, RepeatedMethod method, int repeatIndex, Object result, long nanos) {
+            record(target, new Call(method.getName(), repeatIndex, false, Thread.currentThread()));
+        }
+
+        @Override
+        public void failed(Object target, RepeatedMethod method, int repeatIndex, Exception error, long nanos) {
+            record(target, new Call(method.getName(), repeatIndex, true, Thread.currentThread()));
+        }
+
+        private void record(Object target, Call call) {
+            threads.add(call.thread);
+            // список объекта пополняет только поток, который обрабатывает этот объект
+            calls.computeIfAbsent(target, t -> new ArrayList<>()).add(call);
+        }
+
+        void verify(List<Object> targets) {
+            Map<Class<?>, List<String>> methodOrder = new HashMap<>();
+            int objects = 0;
+            for (Object target : targets) {
+                if (target == null) continue;
+                objects++;
+                List<Call> recorded = calls.get(target);
+                expect(recorded != null, "объект не обработан: " + target);
+                String name = target.getClass().getSimpleName();
+
+                // методы объекта подряд, повторы каждого — по порядку номеров
+                Map<String, Integer> repeats = new LinkedHashMap<>();
+                String current = null;
+                for (Call call : recorded) {
+                    expect(call.thread == recorded.get(0).thread, name + ": вызовы в разных потоках: " + recorded);
+                    expect(call.failed == call.method.equals("fail"), name + ": неверный исход вызова " + call);
+                    if (!call.method.equals(current)) {
+                        expect(!repeats.containsKey(call.method), name + ": методы перемежаются: " + recorded);
+                        current = call.method;
+                        repeats.put(current, 0);
+                    }
+                    int expectedIndex = repeats.get(current);
+                    expect(call.repeatIndex == expectedIndex, name + ": повторы не по порядку: " + recorded);
+                    repeats.put(current, expectedIndex + 1);
+                }
+                expect(repeats.equals(EXPECTED.get(target.getClass())),
+                        name + ": вызовы " + repeats + ", ожидалось " + EXPECTED.get(target.getClass()));
+
+                List<String> order = new ArrayList<>(repeats.keySet());
+                List<String> first = methodOrder.putIfAbsent(target.getClass(), order);
+                expect(first == null || first.equals(order), name + ": порядок методов " + order + " вместо " + first);
+            }
+            expect(calls.size() == objects, "обработано объектов " + calls.size() + ", ожидалось " + objects);
+        }
+    }
+
+    static final class Counter {
+
+        private int count;
+
+        @Repeat(3)
+        private int increment() {
+            return ++count;
+        }
+
+        @Repeat(2)
+        protected void fail() {
+            throw new IllegalStateException("ошибка счётчика");
+        }
+    }
+
+    static final class Gauge {
+
+        @Repeat(4)
+        private double read() {
+            return 1.5;
+        }
+    }
+}
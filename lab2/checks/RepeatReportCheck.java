@@ -0,0 +1,136 @@
+import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RepeatReportCheck — проверка сбора результатов и ошибок в {@link RepeatReport}
+ * при параллельном вызове ({@link ReflectionExecutor#executeConcurrently(Object)})
+ *
+ * Методы проверочного класса выполняются одновременно, часть вызовов завершается исключением.
+ * Проверяется, что:
+ *  - у каждого метода в отчёте ровно {@link Repeat#value()} вызовов с номерами 0..n-1 по порядку;
+ *  - ошибки подсчитаны точно (в том числе когда падает каждый второй вызов в любом порядке),
+ *    и у каждой — исключение самого метода внутри InvocationTargetException;
+ *  - у успешных вызовов сохранён результат;
+ *  - одновременно выполняется не больше {@link Repeat#concurrency()} повторов метода
+ *
+ * Запуск из каталога lab2:
+ *   javac -encoding UTF-8 -d out src/*.java checks/RepeatReportCheck.java
+ *   java -cp out RepeatReportCheck
+ * При ошибке процесс завершается с кодом 1
+ */
+public final class RepeatReportCheck {
+
+    public static void main(String[] args) throws Exception {
+        for (int round = 0; round < 20; round++) {
+            check(new Flaky());
+        }
+        System.out.println("RepeatReportCheck: OK");
+    }
+
+    private static void check(Flaky target) throws Exception {
+        RepeatReport report = ReflectionExecutor.executeConcurrently(target);
+
+        Map<String, RepeatReport.MethodReport> byName = new HashMap<>();
+        for (RepeatReport.MethodReport method : report.getMethods()) {
+            byName.put(method.getName(), method);
+        }
+        expect(byName.size() == 3, "в отчёте методов: " + byName.keySet());
+
+        int flakyFailures = checkMethod(byName.get("everySecondFails"), 20, IllegalStateException.class);
+        expect(flakyFailures == 10, "everySecondFails: ошибок " + flakyFailures + ", ожидалось 10");
+        int alwaysFailures = checkMethod(byName.get("alwaysFails"), 6, UnsupportedOperationException.class);
+        expect(alwaysFailures == 6, "alwaysFails: ошибок " + alwaysFailures + ", ожидалось 6");
+        int sequentialFailures = checkMethod(byName.get("sequential"), 5, null);
+        expect(sequentialFailures == 0, "sequential: ошибок " + sequentialFailures);
+
+        expect(report.getFailureCount() == 16, "всего ошибок " + report.getFailureCount() + ", ожидалось 16");
+        expect(target.flakyMaxActive.get() <= 8,
+                "everySecondFails: одновременно " + target.flakyMaxActive.get() + " вызовов при concurrency = 8");
+        expect(target.sequentialMaxActive.get() == 1,
+                "sequential: одновременно " + target.sequentialMaxActive.get() + " вызовов при concurrency = 1");
+    }
+
+    /**
+     * Проверяет вызовы одного метода и возвращает количество ошибок
+     *
+     * @param cause ожидаемый тип исключения метода или null, если ошибок быть не должно
+     */
+    private static int checkMethod(RepeatReport.MethodReport method, int repeats, Class<?> cause) {
+        expect(method != null, "метод не попал в отчёт");
+        List<RepeatReport.Invocation> invocations = method.getInvocations();
+        expect(invocations.size() == repeats,
+                method.getName() + ": вызовов " + invocations.size() + ", ожидалось " + repeats);
+        int failures = 0;
+        for (int i = 0; i < invocations.size(); i++) {
+            RepeatReport.Invocation invocation = invocations.get(i);
+            expect(invocation != null, method.getName() + ": вызов " + i + " потерян");
+            expect(invocation.getIndex() == i, method.getName() + ": на месте " + i + " вызов " + invocation.getIndex());
+            if (invocation.isFailed()) {
+                failures++;
+                Exception error = invocation.getError();
+                expect(cause != null && error instanceof InvocationTargetException
+                                && cause.isInstance(((InvocationTargetException) error).getTargetException()),
+                        method.getName() + ": неожиданная ошибка " + error);
+            } else {
+                expect(invocation.getResult() != null, method.getName() + ": вызов " + i + " без результата");
+            }
+        }
+        return failures;
+    }
+
+    private static void expect(boolean condition, String message) {
+        if (!condition) throw new AssertionError(message);
+    }
+
+    /**
+     * Проверочный класс: методы считают одновременно выполняющиеся вызовы
+     */
+    static final class Flaky {
+
+        final AtomicInteger flakyCalls = new AtomicInteger();
+        final AtomicInteger flakyActive = new AtomicInteger();
+        final AtomicInteger flakyMaxActive = new AtomicInteger();
+        final AtomicInteger sequentialActive = new AtomicInteger();
+        final AtomicInteger sequentialMaxActive = new AtomicInteger();
+
+        /**
+         * Падает каждый второй вызов в порядке начала, а не в порядке номеров повторов
+         */
+        @Repeat(value = 20, concurrency = 8)
+        private int everySecondFails() throws InterruptedException {
+            enter(flakyActive, flakyMaxActive);
+            try {
+                Thread.sleep(5);
+                int call = flakyCalls.getAndIncrement();
+                if (call % 2 == 1) throw new IllegalStateException("вызов " + call);
+                return call;
+            } finally {
+                flakyActive.decrementAndGet();
+            }
+        }
+
+        @Repeat(value = 6, concurrency = 3)
+        protected String alwaysFails() {
+            throw new UnsupportedOperationException("всегда");
+        }
+
+        @Repeat(5)
+        private long sequential() throws InterruptedException {
+            enter(sequentialActive, sequentialMaxActive);
+            try {
+                Thread.sleep(2);
+                return System.nanoTime();
+            } finally {
+                sequentialActive.decrementAndGet();
+            }
+        }
+
+        private static void enter(AtomicInteger active, AtomicInteger maxActive) {
+            int now = active.incrementAndGet();
+            maxActive.accumulateAndGet(now, Math::max);
+        }
+    }
+}
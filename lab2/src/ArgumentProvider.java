@@ -0,0 +1,85 @@
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Источник значения для одного параметра метода {@link Repeat}
+ *
+ * Постоянные значения ({@link #isConstant()}) подставляются в план метода один раз
+ * и при вызове не создаются заново. Для остальных {@link #next(long)} вызывается на каждый
+ * вызов метода — такие источники подходят для нагрузочных прогонов с разными аргументами.
+ * Источник может вызываться из нескольких потоков одновременно
+ */
+@FunctionalInterface
+public interface ArgumentProvider {
+
+    /**
+     * Возвращает значение параметра для очередного вызова
+     *
+     * @param invocation номер вызова метода в плане, начиная с 0 (общий для всех объектов класса)
+     * @return значение; для примитивного параметра — соответствующая обёртка
+     */
+    Object next(long invocation);
+
+    /**
+     * Возвращает true, если значение не зависит от номера вызова и его можно подставить один раз
+     */
+    default boolean isConstant() {
+        return false;
+    }
+
+    /**
+     * Одно и то же значение для всех вызовов
+     */
+    static ArgumentProvider constant(Object value) {
+        return new ArgumentProvider() {
+            @Override
+            public Object next(long invocation) {
+                return value;
+            }
+
+            @Override
+            public boolean isConstant() {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Последовательность int: start, start + step, start + 2 * step, ...
+     */
+    static ArgumentProvider sequence(int start, int step) {
+        return invocation -> (int) (start + step * invocation);
+    }
+
+    /**
+     * Значения по кругу в заданном порядке. Готовые объекты не создаются заново,
+     * поэтому подходит для строк и других ссылочных значений
+     */
+    static ArgumentProvider cycle(Object... values) {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("Нужно хотя бы одно значение");
+        }
+        Object[] copy = values.clone();
+        return invocation -> copy[(int) Math.floorMod(invocation, (long) copy.length)];
+    }
+
+    /**
+     * Случайный int из [origin, bound)
+     */
+    static ArgumentProvider randomInt(int origin, int bound) {
+        return invocation -> ThreadLocalRandom.current().nextInt(origin, bound);
+    }
+
+    /**
+     * Случайный double из [origin, bound)
+     */
+    static ArgumentProvider randomDouble(double origin, double bound) {
+        return invocation -> ThreadLocalRandom.current().nextDouble(origin, bound);
+    }
+
+    /**
+     * Случайный boolean
+     */
+    static ArgumentProvider randomBoolean() {
+        return invocation -> ThreadLocalRandom.current().nextBoolean();
+    }
+}
@@ -0,0 +1,82 @@
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Набор источников аргументов для {@link ReflectionExecutor}: по типу параметра
+ * и для отдельных параметров конкретных методов. Источник параметра важнее источника типа.
+ * Новый набор уже содержит значения по умолчанию ("default", 1, 1.0, true)
+ *
+ * Набор устанавливается через {@link ReflectionExecutor#setArgumentProviders(ArgumentProviders)},
+ * который делает копию — дальнейшие изменения набора на установленный не влияют
+ */
+public final class ArgumentProviders {
+
+    private final Map<Class<?>, ArgumentProvider> byType = new HashMap<>();
+    private final Map<Method, ArgumentProvider[]> byParameter = new HashMap<>();
+    private boolean customized;
+
+    public ArgumentProviders() {
+        for (Map.Entry<Class<?>, Object> e : ReflectionExecutor.defaultValues().entrySet()) {
+            byType.put(e.getKey(), ArgumentProvider.constant(e.getValue()));
+        }
+    }
+
+    private ArgumentProviders(ArgumentProviders source) {
+        byType.putAll(source.byType);
+        for (Map.Entry<Method, ArgumentProvider[]> e : source.byParameter.entrySet()) {
+            byParameter.put(e.getKey(), e.getValue().clone());
+        }
+        customized = source.customized;
+    }
+
+    /**
+     * Задаёт источник для всех параметров типа {@code type}
+     * (примитив и его обёртка — разные типы)
+     *
+     * @return этот же набор
+     */
+    public ArgumentProviders forType(Class<?> type, ArgumentProvider provider) {
+        byType.put(type, provider);
+        customized = true;
+        return this;
+    }
+
+    /**
+     * Задаёт источник для параметра {@code index} (с 0) метода {@code method}
+     *
+     * @return этот же набор
+     */
+    public ArgumentProviders forParameter(Method method, int index, ArgumentProvider provider) {
+        int count = method.getParameterCount();
+        if (index < 0 || index >= count) {
+            throw new IllegalArgumentException("У метода " + method.getName() + " нет параметра " + index);
+        }
+        byParameter.computeIfAbsent(method, m -> new ArgumentProvider[count])[index] = provider;
+        customized = true;
+        return this;
+    }
+
+    /**
+     * Возвращает источник для параметра или null, если его нет
+     */
+    ArgumentProvider providerFor(Method method, int index) {
+        ArgumentProvider[] parameters = byParameter.get(method);
+        if (parameters != null && parameters[index] != null) {
+            return parameters[index];
+        }
+        return byType.get(method.getParameterTypes()[index]);
+    }
+
+    /**
+     * Возвращает true, если в наборе только значения по умолчанию — тогда подходят
+     * вызовы, сгенерированные {@link RepeatProcessor} с теми же значениями
+     */
+    boolean isDefault() {
+        return !customized;
+    }
+
+    ArgumentProviders copy() {
+        return new ArgumentProviders(this);
+    }
+}
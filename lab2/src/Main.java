@@ -1,5 +1,8 @@
+import java.io.IOException;
+import java.util.List;
+
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException, InterruptedException {
         Welder welder = new Welder();
 
         System.out.println("-- Прямой вызов публичных методов --");
@@ -10,5 +13,20 @@ public class Main {
         System.out.println();
         System.out.println("-- Вызов аннотированных защищённых и приватных методов --");
         ReflectionExecutor.executeProtectedAndPrivateAnnotatedMethods(welder);
+
+        System.out.println("-- Параллельный вызов методов датчиков --");
+        RepeatReport report = ReflectionExecutor.executeConcurrently(new WeldSensor());
+        report.print(System.out, System.out);
+        System.out.println("Вызовов с ошибкой: " + report.getFailureCount());
+        System.out.println();
+
+        System.out.println("-- Методы @Repeat в classpath --");
+        long started = System.nanoTime();
+        List<RepeatIndex.Target> targets = RepeatIndex.discover(Main.class.getClassLoader());
+        long elapsed = System.nanoTime() - started;
+        for (RepeatIndex.Target target : targets) {
+            System.out.println(target);
+        }
+        System.out.println(String.format("Найдено методов: %d за %.3f мс", targets.size(), elapsed / 1e6));
     }
 }
\ No newline at end of file
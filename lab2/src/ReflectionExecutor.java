@@ -1,8 +1,27 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 /**
  * Класс ReflectionExecutor для вызова protected и private методов,
@@ -26,6 +45,44 @@ public class ReflectionExecutor {
         paramValuesMap.put(Boolean.class, true);
     }
 
+    /**
+     * Наибольшее количество обычных потоков, если виртуальные потоки недоступны
+     */
+    private static final int MAX_PLATFORM_THREADS = 64;
+
+    /**
+     * Наименьшее количество объектов в одной порции пакетного вызова
+     */
+    private static final int MIN_BULK_CHUNK = 256;
+
+    /**
+     * Количество пустых замеров для оценки накладных расходов профилирования
+     */
+    private static final int CALIBRATION_SAMPLES = 64;
+
+    /**
+     * Планы вызова для текущего набора источников аргументов. При смене набора
+     * заменяется целиком, и планы строятся заново
+     */
+    private static volatile PlanCache plans = new PlanCache(new ArgumentProviders());
+
+    /**
+     * Метод устанавливает источники аргументов для всех последующих вызовов.
+     * Уже идущие вызовы продолжают работать со старыми аргументами
+     *
+     * @param providers набор источников (копируется)
+     */
+    public static void setArgumentProviders(ArgumentProviders providers) {
+        plans = new PlanCache(providers.copy());
+    }
+
+    /**
+     * Возвращает значения по умолчанию для поддерживаемых типов параметров
+     */
+    static Map<Class<?>, Object> defaultValues() {
+        return Collections.unmodifiableMap(paramValuesMap);
+    }
+
     /**
      * Метож находит у {@code targetObject} все методы с модификаторами protected или
      * private, которые помечены аннотацией {@link Repeat}, и вызывает каждый из них
@@ -37,45 +94,18 @@ public class ReflectionExecutor {
         if (targetObject == null)
             return;
 
-        Class<?> targetType = targetObject.getClass();
-        Method[] declaredMethods = targetType.getDeclaredMethods();
+        for (RepeatedMethod plan : plans.get(targetObject.getClass())) {
+            int repeatCount = plan.getRepeatCount();
 
-        for (Method methodHandle : declaredMethods) {
-            int modifier = methodHandle.getModifiers();
-            boolean isProtected = Modifier.isProtected(modifier);
-            boolean isPrivate = Modifier.isPrivate(modifier);
+            System.out.println("Надденый метод: " + plan.getName()
+                    + " | модификатор: " + modifierName(plan.getModifiers()) + " | , @Repeat(" + repeatCount + ")");
 
-            // обрабатываем только методы protected и private методы
-            if (!isProtected && !isPrivate) {
-                continue;
-            }
-
-            // обрабатываем только методы помеченные аннотацией Repeat
-            if (!methodHandle.isAnnotationPresent(Repeat.class)) {
-                continue;
-            }
-
-            Repeat repeatAnnotation = methodHandle.getAnnotation(Repeat.class);
-            int repeatCount = repeatAnnotation == null ? 1 : repeatAnnotation.value();
-
-            System.out.println("Надденый метод: " + methodHandle.getName()
-                    + " | модификатор: " + modifierName(modifier) + " | , @Repeat(" + repeatCount + ")");
-
-            boolean accessChanged = false;
             try {
-                // делаем метод доступным, если нужно
-                if (!methodHandle.canAccess(targetObject)) {
-                    methodHandle.setAccessible(true);
-                    accessChanged = true;
-                }
-
-                Object[] args = buildArgsForMethod(methodHandle);
-
                 for (int i = 0; i < repeatCount; i++) {
                     System.out.print("Вызов " + (i + 1) + "/" + repeatCount + ": ");
                     try {
-                        Object result = methodHandle.invoke(targetObject, args);
-                        if (!methodHandle.getReturnType().equals(void.class)) {
+                        Object result = plan.invoke(targetObject);
+                        if (plan.hasResult()) {
                             System.out.println("Возвращено: " + result);
                         }
                     } catch (InvocationTargetException ite) {
@@ -84,43 +114,383 @@ public class ReflectionExecutor {
                 }
 
             } catch (IllegalAccessException | IllegalArgumentException e) {
-                System.err.println("Ошибка при вызове метода " + methodHandle.getName() + ": " + e.getMessage());
-            } finally {
-                if (accessChanged) {
-                    try {
-                        methodHandle.setAccessible(false);
-                    } catch (SecurityException ignored) {
-                        // восстановить доступ не удалось — игнорируем
+                System.err.println("Ошибка при вызове метода " + plan.getName() + ": " + e.getMessage());
+            }
+
+            System.out.println();
+        }
+    }
+
+    /**
+     * Метод вызывает те же методы, что и {@link #executeProtectedAndPrivateAnnotatedMethods(Object)},
+     * но параллельно на виртуальных потоках (или ограниченном пуле обычных потоков на Java 17).
+     * Методы выполняются одновременно друг с другом, повторы одного метода — не более чем
+     * по {@link Repeat#concurrency()} сразу. Ничего не печатает: результаты и исключения
+     * собираются в отчёт
+     *
+     * @param targetObject объект, у которого нужно найти и выполнить методы
+     * @return отчёт о вызовах (пустой для null)
+     * @throws InterruptedException если поток прерван во время ожидания; незавершённые вызовы отменяются
+     */
+    public static RepeatReport executeConcurrently(Object targetObject) throws InterruptedException {
+        ExecutorService executor = newRepeatExecutor();
+        try {
+            return executeConcurrently(targetObject, executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * То же, что {@link #executeConcurrently(Object)}, но на переданном пуле. Пул не закрывается.
+     * Для ограниченного пула одновременно выполняется не больше вызовов, чем в нём потоков
+     *
+     * @param targetObject объект, у которого нужно найти и выполнить методы
+     * @param executor     пул, в котором выполняются вызовы
+     * @return отчёт о вызовах (пустой для null)
+     * @throws InterruptedException если поток прерван во время ожидания; незавершённые вызовы отменяются
+     */
+    public static RepeatReport executeConcurrently(Object targetObject, ExecutorService executor)
+            throws InterruptedException {
+        if (targetObject == null)
+            return new RepeatReport(new ArrayList<>());
+
+        RepeatedMethod[] methods = plans.get(targetObject.getClass());
+        ConcurrentRun[] runs = new ConcurrentRun[methods.length];
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < methods.length; i++) {
+            runs[i] = new ConcurrentRun(methods[i], targetObject);
+            // каждый исполнитель забирает номера повторов по одному, пока они не кончатся
+            int workerCount = Math.min(Math.max(methods[i].getConcurrency(), 1), methods[i].getRepeatCount());
+            runs[i].activeWorkers.set(workerCount);
+            for (int w = 0; w < workerCount; w++) {
+                workers.add(executor.submit(runs[i]::work));
+            }
+        }
+
+        try {
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            for (Future<?> worker : workers) {
+                worker.cancel(true);
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            // work() перехватывает ошибки вызова сам, сюда попадают только Error
+            throw new IllegalStateException("Параллельный вызов методов завершился ошибкой", e.getCause());
+        }
+
+        List<RepeatReport.MethodReport> reports = new ArrayList<>(runs.length);
+        for (ConcurrentRun run : runs) {
+            reports.add(run.toReport());
+        }
+        return new RepeatReport(reports);
+    }
+
+    /**
+     * Пакетный вызов методов {@link Repeat} у всех объектов коллекции на общем пуле ForkJoinPool
+     *
+     * @param targets объекты (возможно разных классов, null пропускаются)
+     * @param sink    приёмник результатов
+     * @return количество обработанных объектов
+     */
+    public static long executeAll(Collection<?> targets, RepeatSink sink) {
+        return executeAll(targets, sink, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Пакетный вызов методов {@link Repeat} у всех объектов коллекции.
+     * Объекты группируются по классу, план каждого класса берётся один раз, затем каждая группа
+     * делится на порции, которые выполняются параллельно на пуле {@code pool}.
+     * Повторы метода у одного объекта выполняются по очереди в одном потоке.
+     * Ничего не печатает: результаты и длительность каждого вызова передаются в {@code sink}
+     *
+     * @param targets объекты (возможно разных классов, null пропускаются)
+     * @param sink    приёмник результатов
+     * @param pool    пул, на котором выполняются вызовы
+     * @return количество обработанных объектов
+     */
+    public static long executeAll(Collection<?> targets, RepeatSink sink, ForkJoinPool pool) {
+        Map<Class<?>, List<Object>> byType = new HashMap<>();
+        for (Object target : targets) {
+            if (target != null) {
+                byType.computeIfAbsent(target.getClass(), t -> new ArrayList<>()).add(target);
+            }
+        }
+
+        PlanCache cache = plans;
+        List<BulkTask> tasks = new ArrayList<>(byType.size());
+        long count = 0;
+        for (Map.Entry<Class<?>, List<Object>> e : byType.entrySet()) {
+            Object[] group = e.getValue().toArray();
+            int chunkSize = Math.max(MIN_BULK_CHUNK, group.length / (pool.getParallelism() * 4));
+            tasks.add(new BulkTask(cache.get(e.getKey()), group, 0, group.length, chunkSize, sink));
+            count += group.length;
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(tasks);
+            }
+        });
+        return count;
+    }
+
+    /**
+     * Пакетный вызов методов {@link Repeat} у всех объектов потока на общем пуле ForkJoinPool.
+     * Поток не собирается в память целиком: объекты обрабатываются по мере поступления
+     * (параллельно), план класса каждого объекта берётся из кэша планов
+     *
+     * @param targets объекты (возможно разных классов, null пропускаются)
+     * @param sink    приёмник результатов
+     * @return количество обработанных объектов
+     */
+    public static long executeAll(Stream<?> targets, RepeatSink sink) {
+        PlanCache cache = plans;
+        return targets.parallel()
+                .filter(Objects::nonNull)
+                .mapToLong(target -> {
+                    invokeRepeats(cache.get(target.getClass()), target, sink);
+                    return 1;
+                })
+                .sum();
+    }
+
+    /**
+     * Режим профилирования: каждый метод {@link Repeat}(n) вызывается сначала
+     * {@code warmupRounds * n} раз для прогрева JIT (без замеров), затем
+     * {@code measurementRounds * n} раз с замером времени и выделенной потоком памяти
+     * (через com.sun.management.ThreadMXBean). Методы профилируются по очереди в текущем потоке.
+     * Результат отбрасывается без упаковки ({@link RepeatedMethod#invokeDiscarding(Object)}),
+     * поэтому в выделенную память попадает только то, что выделил сам метод.
+     * Печать самих методов не подавляется и входит в замеры
+     *
+     * @param targetObject       объект, у которого нужно найти и выполнить методы
+     * @param warmupRounds       количество раундов прогрева (>= 0)
+     * @param measurementRounds  количество измеряемых раундов (>= 1)
+     * @return профиль методов (пустой для null)
+     */
+    public static RepeatProfile profile(Object targetObject, int warmupRounds, int measurementRounds) {
+        if (warmupRounds < 0 || measurementRounds < 1) {
+            throw new IllegalArgumentException("Некорректное количество раундов: прогрев="
+                    + warmupRounds + ", замеры=" + measurementRounds);
+        }
+        if (targetObject == null)
+            return new RepeatProfile(new ArrayList<>());
+
+        com.sun.management.ThreadMXBean allocations = allocationCounter();
+        // накладные расходы пустого замера вычитаются из каждого значения
+        long nanosOverhead = Long.MAX_VALUE;
+        long bytesOverhead = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_SAMPLES; i++) {
+            long bytesBefore = allocatedBytes(allocations);
+            long started = System.nanoTime();
+            long nanos = System.nanoTime() - started;
+            long bytes = allocatedBytes(allocations) - bytesBefore;
+            nanosOverhead = Math.min(nanosOverhead, nanos);
+            bytesOverhead = Math.min(bytesOverhead, bytes);
+        }
+
+        List<RepeatProfile.MethodProfile> profiles = new ArrayList<>();
+        for (RepeatedMethod method : plans.get(targetObject.getClass())) {
+            int repeatCount = Math.max(method.getRepeatCount(), 0);
+            int warmupCount = Math.multiplyExact(warmupRounds, repeatCount);
+            for (int i = 0; i < warmupCount; i++) {
+                try {
+                    method.invokeDiscarding(targetObject);
+                } catch (InvocationTargetException | IllegalAccessException | IllegalArgumentException e) {
+                    // при прогреве ошибки не учитываются: они попадут в замеры
+                }
+            }
+
+            // массивы выделяются до замеров, чтобы не попасть в выделенную память вызовов
+            int sampleCount = Math.multiplyExact(measurementRounds, repeatCount);
+            long[] nanos = new long[sampleCount];
+            long[] bytes = allocations != null ? new long[sampleCount] : null;
+            int failures = 0;
+            Exception firstError = null;
+            for (int i = 0; i < sampleCount; i++) {
+                long bytesBefore = allocatedBytes(allocations);
+                long started = System.nanoTime();
+                try {
+                    method.invokeDiscarding(targetObject);
+                } catch (InvocationTargetException | IllegalAccessException | IllegalArgumentException e) {
+                    failures++;
+                    if (firstError == null) firstError = e;
+                }
+                nanos[i] = Math.max(System.nanoTime() - started - nanosOverhead, 0);
+                if (bytes != null) {
+                    bytes[i] = Math.max(allocatedBytes(allocations) - bytesBefore - bytesOverhead, 0);
+                }
+            }
+            profiles.add(new RepeatProfile.MethodProfile(method, warmupCount, nanos, bytes, failures, firstError));
+        }
+        return new RepeatProfile(profiles);
+    }
+
+    /**
+     * Возвращает счётчик выделенной потоками памяти или null, если JVM его не поддерживает
+     */
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        if (!allocations.isThreadAllocatedMemorySupported() || !allocations.isThreadAllocatedMemoryEnabled()) {
+            return null;
+        }
+        return allocations;
+    }
+
+    private static long allocatedBytes(com.sun.management.ThreadMXBean allocations) {
+        return allocations == null ? 0 : allocations.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Вызывает все методы плана у одного объекта нужное количество раз и передаёт итоги в {@code sink}
+     */
+    private static void invokeRepeats(RepeatedMethod[] plan, Object target, RepeatSink sink) {
+        boolean keepResults = sink.needsResults();
+        for (RepeatedMethod method : plan) {
+            for (int i = 0, n = method.getRepeatCount(); i < n; i++) {
+                long started = System.nanoTime();
+                Object result = null;
+                try {
+                    if (keepResults) {
+                        result = method.invoke(target);
+                    } else {
+                        method.invokeDiscarding(target);
                     }
+                } catch (InvocationTargetException | IllegalAccessException | IllegalArgumentException e) {
+                    sink.failed(target, method, i, e, System.nanoTime() - started);
+                    continue;
                 }
+                sink.invoked(target, method, i, result, System.nanoTime() - started);
             }
+        }
+    }
 
-            System.out.println();
+    /**
+     * Виртуальные потоки, если они есть в среде выполнения, иначе ограниченный пул обычных потоков
+     * Метод ищется по имени, чтобы код собирался и работал и на Java 17
+     */
+    private static ExecutorService newRepeatExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(MAX_PLATFORM_THREADS, task -> {
+                Thread thread = new Thread(task, "repeat-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Метод загружает сгенерированный при компиляции {@link RepeatInvoker} класса
+     *
+     * @param targetType класс объектов
+     * @return план вызова или null, если класс не обрабатывался процессором {@link RepeatProcessor}
+     */
+    private static RepeatedMethod[] generatedPlan(Class<?> targetType) {
+        String invokerName = RepeatInvoker.invokerName(targetType.getName());
+        try {
+            Class<?> invokerType = Class.forName(invokerName, true, targetType.getClassLoader());
+            if (!RepeatInvoker.class.isAssignableFrom(invokerType)) {
+                return null;
+            }
+            return ((RepeatInvoker) invokerType.getDeclaredConstructor().newInstance()).methods();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            System.err.println("Сгенерированный вызов " + invokerName + " недоступен, используется рефлексия: " + e);
+            return null;
         }
     }
 
     /**
-     * Метод для построения массива аргументов для метода на основе типов параметров
-     * Если типа нету в списке поддерживаемых — в позицию подставляется null
+     * Метод отбирает у класса protected и private методы с аннотацией {@link Repeat}
+     * и готовит для каждого MethodHandle. Постоянные аргументы подставляются в MethodHandle
+     * сразу, остальные берутся из источников при каждом вызове
+     *
+     * @param targetType класс объектов
+     * @param providers  источники аргументов
+     * @return план вызова (возможно пустой)
+     */
+    private static RepeatedMethod[] buildPlan(Class<?> targetType, ArgumentProviders providers) {
+        MethodHandles.Lookup lookup;
+        IllegalAccessException lookupError = null;
+        try {
+            // поиск с правами самого класса: открывает его private методы без setAccessible
+            lookup = MethodHandles.privateLookupIn(targetType, MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+            lookup = null;
+            lookupError = e;
+        }
+
+        List<RepeatedMethod> plans = new ArrayList<>();
+        for (Method methodHandle : targetType.getDeclaredMethods()) {
+            int modifier = methodHandle.getModifiers();
+
+            // обрабатываем только методы protected и private методы
+            if (!Modifier.isProtected(modifier) && !Modifier.isPrivate(modifier)) {
+                continue;
+            }
+
+            // обрабатываем только методы помеченные аннотацией Repeat
+            Repeat repeatAnnotation = methodHandle.getAnnotation(Repeat.class);
+            if (repeatAnnotation == null) {
+                continue;
+            }
+
+            MethodPlan plan = new MethodPlan(methodHandle, modifier, repeatAnnotation.value(), repeatAnnotation.concurrency());
+            ArgumentProvider[] argProviders = buildArgsForMethod(methodHandle, providers);
+            // ошибки подготовки сообщаются при вызове — так же, как их сообщал бы Method.invoke
+            try {
+                if (lookup == null) {
+                    throw lookupError;
+                }
+                MethodHandle target = lookup.unreflect(methodHandle);
+                if (Modifier.isStatic(modifier)) {
+                    // у статического метода нет получателя: объект принимается и отбрасывается
+                    target = MethodHandles.dropArguments(target, 0, Object.class);
+                }
+                plan.prepare(target, argProviders);
+            } catch (IllegalAccessException e) {
+                plan.accessError = e;
+            } catch (ClassCastException | NullPointerException e) {
+                // аргумент по умолчанию не подходит к параметру (например, null для примитива)
+                plan.argumentError = new IllegalArgumentException("аргументы не подходят к параметрам метода", e);
+            }
+            plans.add(plan);
+        }
+        return plans.toArray(new RepeatedMethod[0]);
+    }
+
+    /**
+     * Метод для подбора источников аргументов для метода на основе типов параметров
+     * Если источника нету — в позицию подставляется постоянный null
      *
      * @param methodHandle дескриптор метода
-     * @return массив аргументов длины, равной количеству параметров метода. Возможно
-     * передать пустой массив при отсутствии аргументов
+     * @param providers    источники аргументов
+     * @return массив источников длины, равной количеству параметров метода
      */
-    private static Object[] buildArgsForMethod(Method methodHandle) {
+    private static ArgumentProvider[] buildArgsForMethod(Method methodHandle, ArgumentProviders providers) {
         Class<?>[] paramTypes = methodHandle.getParameterTypes();
-        if (paramTypes.length == 0)
-            return new Object[0];
-
-        Object[] args = new Object[paramTypes.length];
+        ArgumentProvider[] args = new ArgumentProvider[paramTypes.length];
         for (int i = 0; i < paramTypes.length; i++) {
-            Object defaultValue = paramValuesMap.get(paramTypes[i]);
-            if (defaultValue == null) {
+            ArgumentProvider provider = providers.providerFor(methodHandle, i);
+            if (provider == null) {
                 System.err
                         .println("Для данного тип уотсутствует значение по умолчанию: " + paramTypes[i].getName()
                                 + " — будет использован null");
+                provider = ArgumentProvider.constant(null);
             }
-            args[i] = defaultValue;
+            args[i] = provider;
         }
         return args;
     }
@@ -131,7 +501,7 @@ public class ReflectionExecutor {
      * @param modifier битовый набор модификаторов
      * @return "private" | "protected" | "public" | "package-private"
      */
-    private static String modifierName(int modifier) {
+    static String modifierName(int modifier) {
         if (Modifier.isPrivate(modifier)) {
             return "private";
         }
@@ -143,4 +513,222 @@ public class ReflectionExecutor {
         }
         return "package-private";
     }
+
+    /**
+     * Порция объектов одного класса для пакетного вызова: делится пополам,
+     * пока не станет не больше {@code chunkSize}
+     */
+    private static final class BulkTask extends RecursiveAction {
+
+        private final RepeatedMethod[] plan;
+        private final Object[] targets;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+        private final RepeatSink sink;
+
+        BulkTask(RepeatedMethod[] plan, Object[] targets, int from, int to, int chunkSize, RepeatSink sink) {
+            this.plan = plan;
+            this.targets = targets;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+            this.sink = sink;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                for (int i = from; i < to; i++) {
+                    invokeRepeats(plan, targets[i], sink);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BulkTask(plan, targets, from, mid, chunkSize, sink),
+                    new BulkTask(plan, targets, mid, to, chunkSize, sink));
+        }
+    }
+
+    /**
+     * Состояние параллельного выполнения одного метода: следующий номер повтора
+     * и собранные вызовы
+     */
+    private static final class ConcurrentRun {
+
+        private final RepeatedMethod plan;
+        private final Object target;
+        private final RepeatReport.Invocation[] invocations;
+        private final AtomicInteger nextIndex = new AtomicInteger();
+        private final AtomicInteger activeWorkers = new AtomicInteger();
+        private final AtomicLong startNanos = new AtomicLong(Long.MIN_VALUE);
+        private volatile long endNanos;
+
+        ConcurrentRun(RepeatedMethod plan, Object target) {
+            this.plan = plan;
+            this.target = target;
+            this.invocations = new RepeatReport.Invocation[Math.max(plan.getRepeatCount(), 0)];
+        }
+
+        void work() {
+            startNanos.compareAndSet(Long.MIN_VALUE, System.nanoTime());
+            try {
+                for (int i = nextIndex.getAndIncrement(); i < invocations.length; i = nextIndex.getAndIncrement()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                    long started = System.nanoTime();
+                    Object result = null;
+                    Exception error = null;
+                    try {
+                        result = plan.invoke(target);
+                    } catch (InvocationTargetException | IllegalAccessException | IllegalArgumentException e) {
+                        error = e;
+                    }
+                    invocations[i] = new RepeatReport.Invocation(i, result, error, System.nanoTime() - started);
+                }
+            } finally {
+                if (activeWorkers.decrementAndGet() == 0) {
+                    endNanos = System.nanoTime();
+                }
+            }
+        }
+
+        RepeatReport.MethodReport toReport() {
+            long start = startNanos.get();
+            long wall = start == Long.MIN_VALUE ? 0 : endNanos - start;
+            return new RepeatReport.MethodReport(plan, invocations, wall);
+        }
+    }
+
+    /**
+     * Кэш планов вызова по классам для одного набора источников аргументов.
+     * План класса строится при первом обращении к классу, дальше методы класса не перебираются заново.
+     * Если набор не менялся и для класса при компиляции сгенерирован {@link RepeatInvoker},
+     * план берётся из него
+     */
+    private static final class PlanCache extends ClassValue<RepeatedMethod[]> {
+
+        private final ArgumentProviders providers;
+
+        PlanCache(ArgumentProviders providers) {
+            this.providers = providers;
+        }
+
+        @Override
+        protected RepeatedMethod[] computeValue(Class<?> type) {
+            RepeatedMethod[] generated = providers.isDefault() ? generatedPlan(type) : null;
+            return generated != null ? generated : buildPlan(type, providers);
+        }
+    }
+
+    /**
+     * Вызов одного метода, подготовленный через рефлексию
+     */
+    private static final class MethodPlan extends RepeatedMethod {
+
+        /**
+         * Вызов через скрытый класс с MethodHandle в static final поле: встраивается JIT
+         * до самого метода. Если есть непостоянные аргументы, они передаются массивом
+         */
+        RepeatCall call;
+        ArgumentProvider[] providers;
+        Class<?>[] argumentTypes;
+        boolean[] primitiveParameters;
+        Object[] constantArgs;
+        final AtomicLong invocations = new AtomicLong();
+
+        IllegalAccessException accessError;
+        IllegalArgumentException argumentError;
+
+        MethodPlan(Method method, int modifier, int repeatCount, int concurrency) {
+            super(method.getName(), modifier, repeatCount, concurrency, !method.getReturnType().equals(void.class));
+        }
+
+        /**
+         * Готовит вызов по MethodHandle метода вида (Object target, параметры...)
+         */
+        void prepare(MethodHandle target, ArgumentProvider[] argProviders) {
+            boolean constant = true;
+            Object[] args = new Object[argProviders.length];
+            for (int i = 0; i < argProviders.length; i++) {
+                constant &= argProviders[i].isConstant();
+                if (argProviders[i].isConstant()) {
+                    args[i] = argProviders[i].next(0);
+                }
+            }
+            if (constant) {
+                // массив аргументов не нужен: вызов принимает и отбрасывает null
+                call = RepeatCall.of(MethodHandles.dropArguments(
+                        MethodHandles.insertArguments(target, 1, args), 1, Object[].class));
+                return;
+            }
+            providers = argProviders;
+            constantArgs = args;
+            MethodType parameters = target.type().dropParameterTypes(0, 1);
+            argumentTypes = parameters.wrap().parameterArray();
+            primitiveParameters = new boolean[args.length];
+            for (int i = 0; i < args.length; i++) {
+                primitiveParameters[i] = parameters.parameterType(i).isPrimitive();
+            }
+            call = RepeatCall.of(target.asSpreader(Object[].class, args.length));
+        }
+
+        /**
+         * Вызывает метод у {@code target}. Исключение самого метода оборачивается
+         * в InvocationTargetException, как при Method.invoke
+         */
+        @Override
+        public Object invoke(Object target) throws InvocationTargetException, IllegalAccessException {
+            Object[] args = arguments();
+            try {
+                return call.call(target, args);
+            } catch (Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+        }
+
+        /**
+         * То же, что {@link #invoke(Object)}, но примитивный результат не упаковывается
+         */
+        @Override
+        public void invokeDiscarding(Object target) throws InvocationTargetException, IllegalAccessException {
+            Object[] args = arguments();
+            try {
+                call.run(target, args);
+            } catch (Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+        }
+
+        /**
+         * Проверяет, что метод можно вызвать, и собирает непостоянные аргументы очередного вызова
+         *
+         * @return аргументы или null, если все аргументы постоянные
+         */
+        private Object[] arguments() throws IllegalAccessException {
+            if (accessError != null) {
+                throw accessError;
+            }
+            if (argumentError != null) {
+                throw argumentError;
+            }
+            if (providers == null) {
+                return null;
+            }
+            long invocation = invocations.getAndIncrement();
+            Object[] args = constantArgs.clone();
+            for (int i = 0; i < args.length; i++) {
+                if (providers[i].isConstant()) continue;
+                Object value = providers[i].next(invocation);
+                // несовпадение типов — ошибка аргумента, а не исключение самого метода
+                if (value == null ? primitiveParameters[i] : !argumentTypes[i].isInstance(value)) {
+                    throw new IllegalArgumentException("аргумент " + i + " метода " + getName()
+                            + " не подходит к параметру: " + value);
+                }
+                args[i] = value;
+            }
+            return args;
+        }
+    }
 }
@@ -15,4 +15,12 @@ public @interface Repeat {
      * @return количество повторов (целое число, >=1 желательное)
      */
     int value();
+
+    /**
+     * Сколько повторов может выполняться одновременно в параллельном режиме
+     * ({@link ReflectionExecutor#executeConcurrently(Object)}); при обычном вызове не учитывается
+     *
+     * @return наибольшее количество одновременных вызовов (1 — повторы идут по очереди)
+     */
+    int concurrency() default 1;
 }
\ No newline at end of file
@@ -0,0 +1,286 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Вызов метода, подготовленного через рефлексию, с той же скоростью, что и у сгенерированного
+ * {@link RepeatInvoker}: для каждого метода создаётся скрытый класс, у которого MethodHandle
+ * лежит в static final поле. Такое поле JIT считает константой и встраивает вызов
+ * до самого метода, а MethodHandle в поле обычного объекта остаётся непрозрачным
+ *
+ * Вызов {@link #run(Object, Object[])} отбрасывает результат ещё в MethodHandle, поэтому
+ * примитивный результат не упаковывается и вызов сам ничего не выделяет
+ *
+ * Если скрытый класс создать не удалось, используется обычный объект с MethodHandle в полях
+ */
+abstract class RepeatCall {
+
+    /**
+     * Вызывает метод и возвращает результат (упакованный, null для void)
+     *
+     * @param target получатель
+     * @param args   непостоянные аргументы (null, если все аргументы постоянные)
+     */
+    abstract Object call(Object target, Object[] args) throws Throwable;
+
+    /**
+     * Вызывает метод, отбрасывая результат
+     *
+     * @param target получатель
+     * @param args   непостоянные аргументы (null, если все аргументы постоянные)
+     */
+    abstract void run(Object target, Object[] args) throws Throwable;
+
+    /**
+     * Создаёт вызов по MethodHandle вида (Object target, Object[] args) -> любой тип
+     */
+    static RepeatCall of(MethodHandle handle) {
+        MethodHandle call = handle.asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+        MethodHandle run = handle.asType(MethodType.methodType(void.class, Object.class, Object[].class));
+        try {
+            MethodHandles.Lookup hidden = MethodHandles.lookup()
+                    .defineHiddenClassWithClassData(CLASS_BYTES, List.of(call, run), true);
+            return (RepeatCall) hidden.findConstructor(hidden.lookupClass(), MethodType.methodType(void.class))
+                    .invoke();
+        } catch (Throwable e) {
+            // например, скрытые классы запрещены политикой безопасности — работаем медленнее, но работаем
+            return new HandleCall(call, run);
+        }
+    }
+
+    /**
+     * Запасной вызов: MethodHandle в полях объекта
+     */
+    private static final class HandleCall extends RepeatCall {
+        private final MethodHandle call;
+        private final MethodHandle run;
+
+        HandleCall(MethodHandle call, MethodHandle run) {
+            this.call = call;
+            this.run = run;
+        }
+
+        @Override
+        Object call(Object target, Object[] args) throws Throwable {
+            return call.invokeExact(target, args);
+        }
+
+        @Override
+        void run(Object target, Object[] args) throws Throwable {
+            run.invokeExact(target, args);
+        }
+    }
+
+    /**
+     * class-файл скрытого класса; MethodHandle вызова передаются ему как данные класса
+     * (classDataAt(0) — с результатом, classDataAt(1) — без), поэтому класс один на все методы
+     */
+    private static final byte[] CLASS_BYTES = hiddenClassBytes();
+
+    /**
+     * Собирает class-файл:
+     * <pre>
+     * final class RepeatCall_Constant extends RepeatCall {
+     *     private static final MethodHandle CALL = classDataAt(lookup(), "_", MethodHandle.class, 0);
+     *     private static final MethodHandle RUN = classDataAt(lookup(), "_", MethodHandle.class, 1);
+     *     Object call(Object target, Object[] args) { return CALL.invokeExact(target, args); }
+     *     void run(Object target, Object[] args) { RUN.invokeExact(target, args); }
+     * }
+     * </pre>
+     */
+    private static byte[] hiddenClassBytes() {
+        ConstantPool pool = new ConstantPool();
+        String handle = "java/lang/invoke/MethodHandle";
+        String handleDescriptor = "L" + handle + ";";
+        String callDescriptor = "(Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;";
+        String runDescriptor = "(Ljava/lang/Object;[Ljava/lang/Object;)V";
+
+        int thisClass = pool.classRef("RepeatCall_Constant");
+        int superClass = pool.classRef("RepeatCall");
+        int superInit = pool.memberRef(10, "RepeatCall", "<init>", "()V");
+        int lookup = pool.memberRef(10, "java/lang/invoke/MethodHandles", "lookup",
+                "()Ljava/lang/invoke/MethodHandles$Lookup;");
+        int classDataAt = pool.memberRef(10, "java/lang/invoke/MethodHandles", "classDataAt",
+                "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/Class;I)Ljava/lang/Object;");
+        int dataName = pool.string("_");
+        int handleClass = pool.classRef(handle);
+        int callField = pool.memberRef(9, "RepeatCall_Constant", "CALL", handleDescriptor);
+        int runField = pool.memberRef(9, "RepeatCall_Constant", "RUN", handleDescriptor);
+        int invokeCall = pool.memberRef(10, handle, "invokeExact", callDescriptor);
+        int invokeRun = pool.memberRef(10, handle, "invokeExact", runDescriptor);
+        int code = pool.utf8("Code");
+
+        Bytecode init = new Bytecode().op(0x2a).op(0xb7).u2(superInit).op(0xb1);           // aload_0; invokespecial; return
+        Bytecode clinit = new Bytecode();
+        int[] fields = {callField, runField};
+        for (int i = 0; i < fields.length; i++) {
+            clinit.op(0xb8).u2(lookup)                                                       // invokestatic lookup
+                    .op(0x13).u2(dataName)                                                   // ldc_w "_"
+                    .op(0x13).u2(handleClass)                                                // ldc_w MethodHandle.class
+                    .op(0x03 + i)                                                            // iconst_0 / iconst_1
+                    .op(0xb8).u2(classDataAt)                                                // invokestatic classDataAt
+                    .op(0xc0).u2(handleClass)                                                // checkcast
+                    .op(0xb3).u2(fields[i]);                                                 // putstatic
+        }
+        clinit.op(0xb1);
+        Bytecode call = new Bytecode().op(0xb2).u2(callField).op(0x2b).op(0x2c)            // getstatic; aload_1; aload_2
+                .op(0xb6).u2(invokeCall).op(0xb0);                                           // invokevirtual; areturn
+        Bytecode run = new Bytecode().op(0xb2).u2(runField).op(0x2b).op(0x2c)
+                .op(0xb6).u2(invokeRun).op(0xb1);                                            // invokevirtual; return
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            // поля и методы ссылаются на имена в пуле, поэтому пул дописывается до записи
+            int[][] fieldEntries = {
+                    {0x001A, pool.utf8("CALL"), pool.utf8(handleDescriptor)},
+                    {0x001A, pool.utf8("RUN"), pool.utf8(handleDescriptor)}};
+            Object[][] methodEntries = {
+                    {0x0000, pool.utf8("<init>"), pool.utf8("()V"), 1, 1, init},
+                    {0x0008, pool.utf8("<clinit>"), pool.utf8("()V"), 4, 0, clinit},
+                    {0x0010, pool.utf8("call"), pool.utf8(callDescriptor), 3, 3, call},
+                    {0x0010, pool.utf8("run"), pool.utf8(runDescriptor), 3, 3, run}};
+
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(52);                                                              // Java 8: без StackMapTable
+            pool.writeTo(out);
+            out.writeShort(0x0030);                                                          // ACC_FINAL | ACC_SUPER
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0);                                                               // интерфейсы
+            out.writeShort(fieldEntries.length);
+            for (int[] field : fieldEntries) {
+                out.writeShort(field[0]);
+                out.writeShort(field[1]);
+                out.writeShort(field[2]);
+                out.writeShort(0);
+            }
+            out.writeShort(methodEntries.length);
+            for (Object[] method : methodEntries) {
+                byte[] body = ((Bytecode) method[5]).toByteArray();
+                out.writeShort((Integer) method[0]);
+                out.writeShort((Integer) method[1]);
+                out.writeShort((Integer) method[2]);
+                out.writeShort(1);
+                out.writeShort(code);
+                out.writeInt(12 + body.length);
+                out.writeShort((Integer) method[3]);                                         // max_stack
+                out.writeShort((Integer) method[4]);                                         // max_locals
+                out.writeInt(body.length);
+                out.write(body);
+                out.writeShort(0);                                                           // таблица исключений
+                out.writeShort(0);                                                           // атрибуты Code
+            }
+            out.writeShort(0);                                                               // атрибуты класса
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Пул констант class-файла; одинаковые записи не повторяются
+     */
+    private static final class ConstantPool {
+        private final List<byte[]> entries = new ArrayList<>();
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        int utf8(String value) {
+            return add("U" + value, out -> {
+                out.writeByte(1);
+                out.writeUTF(value);
+            });
+        }
+
+        int classRef(String internalName) {
+            int name = utf8(internalName);
+            return add("C" + internalName, out -> {
+                out.writeByte(7);
+                out.writeShort(name);
+            });
+        }
+
+        int string(String value) {
+            int utf = utf8(value);
+            return add("S" + value, out -> {
+                out.writeByte(8);
+                out.writeShort(utf);
+            });
+        }
+
+        /**
+         * @param tag 9 — поле, 10 — метод
+         */
+        int memberRef(int tag, String owner, String name, String descriptor) {
+            int ownerClass = classRef(owner);
+            int nameUtf = utf8(name);
+            int descriptorUtf = utf8(descriptor);
+            int nameAndType = add("N" + name + " " + descriptor, out -> {
+                out.writeByte(12);
+                out.writeShort(nameUtf);
+                out.writeShort(descriptorUtf);
+            });
+            return add(tag + owner + "." + name + descriptor, out -> {
+                out.writeByte(tag);
+                out.writeShort(ownerClass);
+                out.writeShort(nameAndType);
+            });
+        }
+
+        private int add(String key, Entry entry) {
+            Integer index = indexes.get(key);
+            if (index != null) return index;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try {
+                entry.write(new DataOutputStream(bytes));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            entries.add(bytes.toByteArray());
+            indexes.put(key, entries.size());
+            return entries.size();
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeShort(entries.size() + 1);
+            for (byte[] entry : entries) {
+                out.write(entry);
+            }
+        }
+
+        private interface Entry {
+            void write(DataOutputStream out) throws IOException;
+        }
+    }
+
+    /**
+     * Код метода
+     */
+    private static final class Bytecode {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        Bytecode op(int opcode) {
+            bytes.write(opcode);
+            return this;
+        }
+
+        Bytecode u2(int value) {
+            bytes.write(value >>> 8);
+            bytes.write(value);
+            return this;
+        }
+
+        byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+}
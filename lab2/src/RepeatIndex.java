@@ -0,0 +1,571 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Поиск методов {@link Repeat} во всём приложении без загрузки классов
+ *
+ * Основной источник — индекс {@value #INDEX_RESOURCE}, который {@link RepeatProcessor}
+ * записывает при компиляции рядом с классами. Каталоги и jar-файлы classpath без индекса
+ * просматриваются напрямую: в каждом class-файле читается пул констант, и дальше
+ * разбираются только файлы, упоминающие аннотацию
+ */
+public final class RepeatIndex {
+
+    /**
+     * Путь к индексу внутри каталога классов или jar-файла
+     */
+    public static final String INDEX_RESOURCE = "META-INF/repeat.index";
+
+    /**
+     * Дескриптор аннотации в class-файле
+     */
+    private static final byte[] REPEAT_DESCRIPTOR_BYTES =
+            ("L" + Repeat.class.getName().replace('.', '/') + ";").getBytes(StandardCharsets.UTF_8);
+
+    private static final String ANNOTATIONS_ATTRIBUTE = "RuntimeVisibleAnnotations";
+
+    /**
+     * Теги записей пула констант, на которые ссылается разбор (JVMS 4.4)
+     */
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_CLASS = 7;
+
+    private RepeatIndex() {
+    }
+
+    /**
+     * Метод находит все методы {@link Repeat} приложения во всех элементах classpath загрузчика
+     * {@code loader} и его родителей: элемент с индексом читается по индексу, элемент без
+     * индекса (собранный без процессора) просматривается напрямую.
+     * Элементы известны у URLClassLoader и у системного загрузчика ({@code java.class.path});
+     * у остальных загрузчиков видны только их индексы
+     *
+     * @param loader загрузчик, у которого ищутся методы
+     * @return найденные методы
+     * @throws IOException если индекс или class-файл не удалось прочитать
+     */
+    public static List<Target> discover(ClassLoader loader) throws IOException {
+        // один и тот же элемент может быть виден через несколько загрузчиков
+        Set<Target> targets = new LinkedHashSet<>();
+        List<Path> roots = roots(loader);
+        for (Path root : roots) {
+            List<Target> indexed = readIndex(root);
+            targets.addAll(indexed != null ? indexed : scan(List.of(root)));
+        }
+        if (roots.isEmpty()) {
+            List<Target> indexed = readIndexes(loader);
+            if (indexed != null) targets.addAll(indexed);
+        }
+        return new ArrayList<>(targets);
+    }
+
+    /**
+     * Метод возвращает каталоги и jar-файлы, из которых загружает классы {@code loader},
+     * начиная с родительских загрузчиков
+     */
+    static List<Path> roots(ClassLoader loader) throws IOException {
+        List<ClassLoader> chain = new ArrayList<>();
+        for (ClassLoader l = loader; l != null; l = l.getParent()) {
+            chain.add(0, l);
+        }
+        Set<Path> roots = new LinkedHashSet<>();
+        ClassLoader system = ClassLoader.getSystemClassLoader();
+        for (ClassLoader l : chain) {
+            if (l instanceof URLClassLoader) {
+                for (URL url : ((URLClassLoader) l).getURLs()) {
+                    if (!"file".equals(url.getProtocol())) continue;
+                    try {
+                        roots.add(Paths.get(url.toURI()));
+                    } catch (URISyntaxException e) {
+                        throw new IOException("Некорректный элемент classpath: " + url, e);
+                    }
+                }
+            } else if (l == system) {
+                for (String entry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+                    if (!entry.isEmpty()) roots.add(Paths.get(entry));
+                }
+            }
+        }
+        return new ArrayList<>(roots);
+    }
+
+    /**
+     * Метод читает индекс {@value #INDEX_RESOURCE} одного каталога классов или jar-файла
+     *
+     * @return найденные методы или null, если индекса в этом элементе нет
+     */
+    static List<Target> readIndex(Path root) throws IOException {
+        if (Files.isDirectory(root)) {
+            Path index = root.resolve(INDEX_RESOURCE);
+            if (!Files.isRegularFile(index)) return null;
+            try (BufferedReader reader = Files.newBufferedReader(index, StandardCharsets.UTF_8)) {
+                return readIndex(reader, index.toString());
+            }
+        }
+        if (!Files.isRegularFile(root)) return null;
+        try (ZipFile zip = new ZipFile(root.toFile())) {
+            ZipEntry entry = zip.getEntry(INDEX_RESOURCE);
+            if (entry == null) return null;
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(zip.getInputStream(entry), StandardCharsets.UTF_8))) {
+                return readIndex(reader, root + "!/" + INDEX_RESOURCE);
+            }
+        }
+    }
+
+    /**
+     * Метод читает все индексы {@value #INDEX_RESOURCE}, доступные загрузчику
+     *
+     * @return найденные методы или null, если ни одного индекса нет
+     */
+    public static List<Target> readIndexes(ClassLoader loader) throws IOException {
+        Enumeration<URL> resources = loader.getResources(INDEX_RESOURCE);
+        if (!resources.hasMoreElements()) {
+            return null;
+        }
+        // один и тот же индекс может быть виден через несколько элементов classpath
+        Set<Target> targets = new LinkedHashSet<>();
+        while (resources.hasMoreElements()) {
+            URL url = resources.nextElement();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+                targets.addAll(readIndex(reader, url.toString()));
+            }
+        }
+        return new ArrayList<>(targets);
+    }
+
+    private static List<Target> readIndex(BufferedReader reader, String source) throws IOException {
+        List<Target> targets = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            targets.add(Target.parse(line, source));
+        }
+        return targets;
+    }
+
+    /**
+     * Метод просматривает class-файлы в каталогах и jar-файлах, не загружая классы
+     *
+     * @param roots каталоги классов и jar-файлы; несуществующие пропускаются
+     * @return найденные методы
+     * @throws IOException если каталог или jar-файл не удалось прочитать
+     */
+    public static List<Target> scan(List<Path> roots) throws IOException {
+        List<Target> targets = new ArrayList<>();
+        for (Path root : roots) {
+            if (Files.isDirectory(root)) {
+                scanDirectory(root, targets);
+            } else if (Files.isRegularFile(root)) {
+                scanJar(root, targets);
+            }
+        }
+        return targets;
+    }
+
+    private static void scanDirectory(Path root, List<Target> targets) throws IOException {
+        List<Path> classFiles;
+        try (Stream<Path> files = Files.walk(root)) {
+            classFiles = files.filter(p -> p.toString().endsWith(".class")).sorted().collect(Collectors.toList());
+        }
+        for (Path file : classFiles) {
+            try {
+                scanClass(Files.readAllBytes(file), targets);
+            } catch (IOException e) {
+                throw new IOException("Не удалось разобрать " + file + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static void scanJar(Path jar, List<Target> targets) throws IOException {
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory() || !entry.getName().endsWith(".class")) continue;
+                try (InputStream in = zip.getInputStream(entry)) {
+                    scanClass(in.readAllBytes(), targets);
+                } catch (IOException e) {
+                    throw new IOException("Не удалось разобрать " + jar + "!/" + entry.getName() + ": " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Метод разбирает один class-файл (формат из JVMS, глава 4) и добавляет
+     * его методы с аннотацией {@link Repeat}.
+     * Строки пула констант не декодируются: сначала их байты сравниваются с дескриптором
+     * аннотации, и только у подходящих классов читаются имена
+     */
+    static void scanClass(byte[] classFile, List<Target> targets) throws IOException {
+        ClassFileReader in = new ClassFileReader(classFile);
+        if (in.u4() != 0xCAFEBABE) {
+            return;
+        }
+        in.skip(4);
+
+        // пул констант: нужны строки, имена классов и целые константы (значение аннотации)
+        int poolSize = in.u2();
+        int[] offsets = new int[poolSize];
+        int descriptorIndex = 0;
+        for (int i = 1; i < poolSize; i++) {
+            offsets[i] = in.pos;
+            int tag = in.u1();
+            switch (tag) {
+                case 1:
+                    int length = in.u2();
+                    if (descriptorIndex == 0 && in.matches(REPEAT_DESCRIPTOR_BYTES, length)) {
+                        descriptorIndex = i;
+                    }
+                    in.skip(length);
+                    break;
+                case 3:
+                case 4:
+                case 9:
+                case 10:
+                case 11:
+                case 12:
+                case 17:
+                case 18:
+                    in.skip(4);
+                    break;
+                case 5:
+                case 6:
+                    // long и double занимают две ячейки пула
+                    in.skip(8);
+                    i++;
+                    break;
+                case 7:
+                case 8:
+                case 16:
+                case 19:
+                case 20:
+                    in.skip(2);
+                    break;
+                case 15:
+                    in.skip(3);
+                    break;
+                default:
+                    throw new IOException("Неизвестный тег пула констант: " + tag);
+            }
+        }
+        if (descriptorIndex == 0) {
+            return;
+        }
+
+        in.skip(2);
+        String className = in.utf8(offsets, in.u2(in.entry(offsets, in.u2(), CONSTANT_CLASS) + 1)).replace('/', '.');
+        in.skip(2);
+        in.skip(2 * in.u2());
+
+        int fieldCount = in.u2();
+        for (int i = 0; i < fieldCount; i++) {
+            in.skip(6);
+            int attributeCount = in.u2();
+            for (int a = 0; a < attributeCount; a++) {
+                in.skip(2);
+                in.skip(in.u4());
+            }
+        }
+
+        int methodCount = in.u2();
+        for (int i = 0; i < methodCount; i++) {
+            int access = in.u2();
+            int nameIndex = in.u2();
+            int descriptorOfMethod = in.u2();
+            int attributeCount = in.u2();
+            for (int a = 0; a < attributeCount; a++) {
+                String attributeName = in.utf8(offsets, in.u2());
+                int length = in.u4();
+                if (!ANNOTATIONS_ATTRIBUTE.equals(attributeName)) {
+                    in.skip(length);
+                    continue;
+                }
+                int annotationCount = in.u2();
+                for (int n = 0; n < annotationCount; n++) {
+                    boolean isRepeat = in.u2() == descriptorIndex;
+                    int repeatCount = 0;
+                    int pairCount = in.u2();
+                    for (int p = 0; p < pairCount; p++) {
+                        String elementName = in.utf8(offsets, in.u2());
+                        int tag = in.u1();
+                        if (isRepeat && tag == 'I' && "value".equals(elementName)) {
+                            // CONSTANT_Integer: тег и 4 байта значения
+                            repeatCount = in.u4(in.entry(offsets, in.u2(), CONSTANT_INTEGER) + 1);
+                        } else {
+                            skipElementValue(in, tag);
+                        }
+                    }
+                    if (isRepeat) {
+                        targets.add(new Target(className, in.utf8(offsets, nameIndex),
+                                in.utf8(offsets, descriptorOfMethod), access & Target.ACCESS_MASK, repeatCount));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Пропускает значение элемента аннотации (JVMS 4.7.16.1), тег уже прочитан
+     */
+    private static void skipElementValue(ClassFileReader in, int tag) throws IOException {
+        switch (tag) {
+            case 'e':
+                in.skip(4);
+                break;
+            case '@':
+                in.skip(2);
+                int pairCount = in.u2();
+                for (int i = 0; i < pairCount; i++) {
+                    in.skip(2);
+                    skipElementValue(in, in.u1());
+                }
+                break;
+            case '[':
+                int valueCount = in.u2();
+                for (int i = 0; i < valueCount; i++) {
+                    skipElementValue(in, in.u1());
+                }
+                break;
+            default:
+                // примитивы, строки и классы — индекс в пуле констант
+                in.skip(2);
+                break;
+        }
+    }
+
+    /**
+     * Чтение class-файла из массива байт по текущей позиции
+     */
+    private static final class ClassFileReader {
+
+        private final byte[] data;
+        int pos;
+
+        ClassFileReader(byte[] data) {
+            this.data = data;
+        }
+
+        int u1() throws IOException {
+            check(1);
+            return data[pos++] & 0xFF;
+        }
+
+        int u2() throws IOException {
+            check(2);
+            int value = u2(pos);
+            pos += 2;
+            return value;
+        }
+
+        int u4() throws IOException {
+            check(4);
+            int value = u4(pos);
+            pos += 4;
+            return value;
+        }
+
+        int u2(int at) {
+            return (data[at] & 0xFF) << 8 | data[at + 1] & 0xFF;
+        }
+
+        int u4(int at) {
+            return u2(at) << 16 | u2(at + 2);
+        }
+
+        void skip(int length) throws IOException {
+            if (length < 0) throw new IOException("Некорректная длина в class-файле: " + length);
+            check(length);
+            pos += length;
+        }
+
+        /**
+         * Сравнивает {@code length} байт с текущей позиции с {@code expected}
+         */
+        boolean matches(byte[] expected, int length) throws IOException {
+            check(length);
+            return length == expected.length
+                    && Arrays.equals(data, pos, pos + length, expected, 0, length);
+        }
+
+        /**
+         * Декодирует строку CONSTANT_Utf8 пула констант (модифицированный UTF-8)
+         */
+        String utf8(int[] offsets, int index) throws IOException {
+            int at = entry(offsets, index, CONSTANT_UTF8);
+            return new DataInputStream(new ByteArrayInputStream(data, at + 1, u2(at + 1) + 2)).readUTF();
+        }
+
+        /**
+         * Проверяет ссылку на пул констант из class-файла
+         *
+         * @return смещение записи {@code index} с тегом {@code tag}
+         * @throws IOException если индекс вне пула, указывает на вторую ячейку long/double
+         *                     или запись другого типа
+         */
+        int entry(int[] offsets, int index, int tag) throws IOException {
+            if (index < 1 || index >= offsets.length || offsets[index] == 0) {
+                throw new IOException("Некорректный индекс пула констант: " + index);
+            }
+            int at = offsets[index];
+            if (data[at] != tag) {
+                throw new IOException("Запись пула констант " + index + " имеет тег " + data[at] + " вместо " + tag);
+            }
+            return at;
+        }
+
+        private void check(int length) throws IOException {
+            if (length > data.length - pos) throw new EOFException("Неожиданный конец class-файла");
+        }
+    }
+
+    /**
+     * Найденный метод с аннотацией {@link Repeat}
+     */
+    public static final class Target {
+
+        /**
+         * Учитываемые модификаторы: public, private, protected, static
+         */
+        static final int ACCESS_MASK = java.lang.reflect.Modifier.PUBLIC | java.lang.reflect.Modifier.PRIVATE
+                | java.lang.reflect.Modifier.PROTECTED | java.lang.reflect.Modifier.STATIC;
+
+        private final String className;
+        private final String methodName;
+        private final String descriptor;
+        private final int modifiers;
+        private final int repeatCount;
+
+        /**
+         * @param descriptor дескриптор метода в формате JVM после стирания типов, например "(Ljava/lang/String;I)V"
+         */
+        Target(String className, String methodName, String descriptor, int modifiers, int repeatCount) {
+            this.className = className;
+            this.methodName = methodName;
+            this.descriptor = descriptor;
+            this.modifiers = modifiers;
+            this.repeatCount = repeatCount;
+        }
+
+        /**
+         * Разбирает строку индекса: класс, метод, дескриптор, модификаторы и количество повторов через табуляцию
+         */
+        static Target parse(String line, String source) throws IOException {
+            String[] parts = line.split("\t");
+            try {
+                return new Target(parts[0], parts[1], parts[2], Integer.parseInt(parts[3]), Integer.parseInt(parts[4]));
+            } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                throw new IOException("Некорректная строка индекса " + source + ": " + line, e);
+            }
+        }
+
+        /**
+         * Строка для индекса — обратная к {@link #parse(String, String)}
+         */
+        String toIndexLine() {
+            return className + "\t" + methodName + "\t" + descriptor + "\t" + modifiers + "\t" + repeatCount;
+        }
+
+        /**
+         * Возвращает двоичное имя класса (как у {@link Class#getName()})
+         */
+        public String getClassName() {
+            return className;
+        }
+
+        public String getMethodName() {
+            return methodName;
+        }
+
+        /**
+         * Возвращает модификаторы метода (public/private/protected/static)
+         */
+        public int getModifiers() {
+            return modifiers;
+        }
+
+        /**
+         * Возвращает дескриптор метода в формате JVM — различает перегруженные методы
+         */
+        public String getDescriptor() {
+            return descriptor;
+        }
+
+        public int getRepeatCount() {
+            return repeatCount;
+        }
+
+        /**
+         * Загружает класс метода (без инициализации)
+         */
+        public Class<?> loadClass(ClassLoader loader) throws ClassNotFoundException {
+            return Class.forName(className, false, loader);
+        }
+
+        /**
+         * Находит сам метод: по имени и дескриптору среди объявленных методов класса
+         *
+         * @throws NoSuchMethodException если класс изменился после индексации
+         */
+        public Method resolve(ClassLoader loader) throws ClassNotFoundException, NoSuchMethodException {
+            Class<?> type = loadClass(loader);
+            for (Method method : type.getDeclaredMethods()) {
+                if (method.getName().equals(methodName)
+                        && MethodType.methodType(method.getReturnType(), method.getParameterTypes())
+                        .toMethodDescriptorString().equals(descriptor)) {
+                    return method;
+                }
+            }
+            throw new NoSuchMethodException(className + "." + methodName + descriptor);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Target)) return false;
+            Target other = (Target) o;
+            return modifiers == other.modifiers && repeatCount == other.repeatCount
+                    && className.equals(other.className) && methodName.equals(other.methodName)
+                    && descriptor.equals(other.descriptor);
+        }
+
+        @Override
+        public int hashCode() {
+            return ((className.hashCode() * 31 + methodName.hashCode()) * 31 + descriptor.hashCode()) * 31
+                    + modifiers * 7 + repeatCount;
+        }
+
+        @Override
+        public String toString() {
+            return className + "." + methodName + descriptor + " @Repeat(" + repeatCount + ")";
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * Вызовы методов класса, помеченных {@link Repeat}, сгенерированные при компиляции
+ * процессором {@link RepeatProcessor}
+ *
+ * Для класса {@code pkg.Welder} генерируется {@code pkg.Welder_RepeatInvoker}
+ * (у вложенных классов '$' в двоичном имени заменяется на '_'), его находит
+ * {@link ReflectionExecutor} по имени и использует вместо поиска методов через рефлексию
+ */
+public interface RepeatInvoker {
+
+    /**
+     * Окончание имени сгенерированного класса
+     */
+    String SUFFIX = "_RepeatInvoker";
+
+    /**
+     * Возвращает protected и private методы класса с аннотацией {@link Repeat}
+     * в порядке объявления
+     */
+    RepeatedMethod[] methods();
+
+    /**
+     * Возвращает имя сгенерированного класса для класса с двоичным именем {@code binaryName}
+     */
+    static String invokerName(String binaryName) {
+        return binaryName.replace('$', '_') + SUFFIX;
+    }
+}
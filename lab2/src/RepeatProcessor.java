@@ -0,0 +1,407 @@
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Процессор аннотаций, генерирующий для каждого класса с методами {@link Repeat}
+ * класс {@link RepeatInvoker} с прямыми вызовами этих методов — без поиска методов
+ * через рефлексию во время работы
+ *
+ * protected методы вызываются напрямую (сгенерированный класс лежит в том же пакете),
+ * private — через static final MethodHandle, найденный один раз при загрузке класса.
+ * Для методов с результатом генерируется и {@link RepeatedMethod#invokeDiscarding(Object)},
+ * который не упаковывает примитивный результат.
+ * Аргументы — те же значения по умолчанию, что подставляет {@link ReflectionExecutor}
+ *
+ * Класс пропускается (и обрабатывается рефлексией), если он private или локальный,
+ * либо у метода есть параметр-примитив без значения по умолчанию
+ *
+ * Кроме того, в последнем раунде записывается индекс {@link RepeatIndex#INDEX_RESOURCE}
+ * со всеми методами {@link Repeat} (с любым модификатором) скомпилированных классов.
+ * При частичной перекомпиляции индекс дополняет уже лежащий в каталоге классов: строки
+ * перекомпилированных классов заменяются, строки классов, чьих class-файлов больше нет, удаляются,
+ * остальные сохраняются
+ *
+ * Сборка lab2 с процессором:
+ *     javac -d out/processor -sourcepath src src/RepeatProcessor.java
+ *     javac -d out -processorpath out/processor -processor RepeatProcessor -s out/generated src/*.java
+ */
+// "*": процессор вызывается и при сборке без @Repeat, чтобы убрать из индекса строки классов,
+// у которых аннотаций не осталось; аннотации не присваиваются (process возвращает false)
+@SupportedAnnotationTypes("*")
+public class RepeatProcessor extends AbstractProcessor {
+
+    /**
+     * Значения по умолчанию в виде выражений Java — должны совпадать с ReflectionExecutor
+     */
+    private static final Map<String, String> DEFAULT_LITERALS = new LinkedHashMap<>();
+
+    static {
+        DEFAULT_LITERALS.put("java.lang.String", "\"default\"");
+        DEFAULT_LITERALS.put("int", "1");
+        DEFAULT_LITERALS.put("java.lang.Integer", "Integer.valueOf(1)");
+        DEFAULT_LITERALS.put("double", "1.0");
+        DEFAULT_LITERALS.put("java.lang.Double", "Double.valueOf(1.0)");
+        DEFAULT_LITERALS.put("boolean", "true");
+        DEFAULT_LITERALS.put("java.lang.Boolean", "Boolean.TRUE");
+    }
+
+    /**
+     * Строки индекса, накопленные за все раунды
+     */
+    private final List<String> indexLines = new ArrayList<>();
+
+    /**
+     * Двоичные имена всех классов, скомпилированных в этом запуске (в том числе без {@link Repeat})
+     */
+    private final Set<String> compiledTypes = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+        for (Element root : roundEnv.getRootElements()) {
+            collectTypes(root);
+        }
+        TypeElement repeat = processingEnv.getElementUtils().getTypeElement("Repeat");
+        if (repeat == null) return false;
+
+        // методы группируются по объявившему их классу в порядке объявления
+        Map<TypeElement, List<ExecutableElement>> byType = new LinkedHashMap<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(repeat)) {
+            if (element.getKind() != ElementKind.METHOD) continue;
+            Set<Modifier> modifiers = element.getModifiers();
+            indexLines.add(indexLine((ExecutableElement) element));
+            if (!modifiers.contains(Modifier.PROTECTED) && !modifiers.contains(Modifier.PRIVATE)) continue;
+            byType.computeIfAbsent((TypeElement) element.getEnclosingElement(), t -> new ArrayList<>())
+                    .add((ExecutableElement) element);
+        }
+
+        for (Map.Entry<TypeElement, List<ExecutableElement>> e : byType.entrySet()) {
+            TypeElement type = e.getKey();
+            String reason = unsupportedReason(type, e.getValue());
+            if (reason != null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                        "Вызовы @Repeat не генерируются (" + reason + "), будет использована рефлексия", type);
+                continue;
+            }
+            try {
+                generate(type, e.getValue());
+            } catch (IOException ex) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Не удалось записать вызовы @Repeat: " + ex.getMessage(), type);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Строка индекса для метода: двоичное имя класса, имя метода, дескриптор, модификаторы, количество повторов
+     */
+    private String indexLine(ExecutableElement method) {
+        TypeElement type = (TypeElement) method.getEnclosingElement();
+        int modifiers = 0;
+        for (Modifier modifier : method.getModifiers()) {
+            switch (modifier) {
+                case PUBLIC: modifiers |= java.lang.reflect.Modifier.PUBLIC; break;
+                case PRIVATE: modifiers |= java.lang.reflect.Modifier.PRIVATE; break;
+                case PROTECTED: modifiers |= java.lang.reflect.Modifier.PROTECTED; break;
+                case STATIC: modifiers |= java.lang.reflect.Modifier.STATIC; break;
+                default: break;
+            }
+        }
+        return new RepeatIndex.Target(processingEnv.getElementUtils().getBinaryName(type).toString(),
+                method.getSimpleName().toString(), methodDescriptor(method), modifiers,
+                method.getAnnotation(Repeat.class).value()).toIndexLine();
+    }
+
+    /**
+     * Дескриптор метода в формате JVM после стирания типов — как в class-файле
+     */
+    private String methodDescriptor(ExecutableElement method) {
+        StringBuilder descriptor = new StringBuilder("(");
+        for (VariableElement parameter : method.getParameters()) {
+            descriptor.append(typeDescriptor(parameter.asType()));
+        }
+        return descriptor.append(')').append(typeDescriptor(method.getReturnType())).toString();
+    }
+
+    private String typeDescriptor(TypeMirror type) {
+        TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+        switch (erased.getKind()) {
+            case BOOLEAN: return "Z";
+            case BYTE: return "B";
+            case SHORT: return "S";
+            case CHAR: return "C";
+            case INT: return "I";
+            case LONG: return "J";
+            case FLOAT: return "F";
+            case DOUBLE: return "D";
+            case VOID: return "V";
+            case ARRAY: return "[" + typeDescriptor(((ArrayType) erased).getComponentType());
+            default:
+                TypeElement element = (TypeElement) processingEnv.getTypeUtils().asElement(erased);
+                return "L" + processingEnv.getElementUtils().getBinaryName(element).toString().replace('.', '/') + ";";
+        }
+    }
+
+    private void writeIndex() {
+        List<String> previous = previousIndexLines();
+        // без прежнего индекса и без методов @Repeat писать нечего; прежний индекс
+        // переписывается всегда, иначе в нём остались бы строки перекомпилированных классов
+        if (previous == null && indexLines.isEmpty()) return;
+        List<String> lines = previous != null ? previous : new ArrayList<>();
+        lines.addAll(indexLines);
+        try {
+            FileObject file = processingEnv.getFiler()
+                    .createResource(StandardLocation.CLASS_OUTPUT, "", RepeatIndex.INDEX_RESOURCE);
+            try (PrintWriter out = new PrintWriter(file.openWriter())) {
+                out.println("# методы @Repeat: класс, метод, дескриптор, модификаторы, количество повторов (сгенерировано RepeatProcessor)");
+                for (String line : lines) {
+                    out.println(line);
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Не удалось записать индекс методов @Repeat: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Метод читает индекс, оставшийся в каталоге классов от прошлой сборки, и возвращает
+     * его строки для классов, которые не перекомпилировались и class-файлы которых на месте
+     *
+     * @return сохраняемые строки или null, если прежнего индекса нет
+     */
+    private List<String> previousIndexLines() {
+        FileObject previous;
+        try {
+            previous = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", RepeatIndex.INDEX_RESOURCE);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+        List<String> kept = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(previous.openReader(true))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String className = RepeatIndex.Target.parse(line, RepeatIndex.INDEX_RESOURCE).getClassName();
+                if (!compiledTypes.contains(className) && classFileExists(className)) {
+                    kept.add(line);
+                }
+            }
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            // прежнего индекса нет — первая сборка в этот каталог
+            return null;
+        } catch (IOException e) {
+            // испорченный индекс не переносится: в нём окажутся только классы этого запуска
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Прежний индекс методов @Repeat не прочитан и будет заменён: " + e.getMessage());
+            kept.clear();
+        }
+        return kept;
+    }
+
+    private boolean classFileExists(String binaryName) {
+        int dot = binaryName.lastIndexOf('.');
+        String pkg = dot < 0 ? "" : binaryName.substring(0, dot);
+        String file = binaryName.substring(dot + 1) + ".class";
+        try {
+            FileObject classFile = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, pkg, file);
+            classFile.openInputStream().close();
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Метод запоминает двоичные имена класса и всех вложенных в него классов
+     */
+    private void collectTypes(Element element) {
+        if (!(element instanceof TypeElement)) return;
+        compiledTypes.add(processingEnv.getElementUtils().getBinaryName((TypeElement) element).toString());
+        for (Element enclosed : element.getEnclosedElements()) {
+            collectTypes(enclosed);
+        }
+    }
+
+    /**
+     * Метод проверяет, можно ли вызвать методы класса из сгенерированного кода
+     *
+     * @return причина, по которой нельзя, или null
+     */
+    private String unsupportedReason(TypeElement type, List<ExecutableElement> methods) {
+        if (type.getNestingKind() != NestingKind.TOP_LEVEL && type.getNestingKind() != NestingKind.MEMBER) {
+            return "локальный или анонимный класс";
+        }
+        for (Element t = type; t instanceof TypeElement; t = t.getEnclosingElement()) {
+            if (t.getModifiers().contains(Modifier.PRIVATE)) return "private класс";
+        }
+        for (ExecutableElement method : methods) {
+            for (VariableElement parameter : method.getParameters()) {
+                TypeMirror parameterType = parameter.asType();
+                if (parameterType.getKind().isPrimitive() && literalFor(parameterType) == null) {
+                    return "нет значения по умолчанию для параметра " + parameterType + " метода " + method.getSimpleName();
+                }
+            }
+        }
+        return null;
+    }
+
+    private void generate(TypeElement type, List<ExecutableElement> methods) throws IOException {
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String invokerName = RepeatInvoker.invokerName(binaryName);
+        String simpleName = invokerName.substring(invokerName.lastIndexOf('.') + 1);
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        String typeName = erasure(type.asType());
+
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(invokerName, type);
+        try (PrintWriter out = new PrintWriter(file.openWriter())) {
+            if (!pkg.isUnnamed()) {
+                out.println("package " + pkg.getQualifiedName() + ";");
+                out.println();
+            }
+            out.println("/**");
+            out.println(" * Вызовы методов @Repeat класса " + typeName + " (сгенерировано RepeatProcessor)");
+            out.println(" */");
+            out.println("@SuppressWarnings({\"rawtypes\", \"unchecked\"})");
+            out.println("public final class " + simpleName + " implements RepeatInvoker {");
+
+            for (int i = 0; i < methods.size(); i++) {
+                ExecutableElement method = methods.get(i);
+                if (!method.getModifiers().contains(Modifier.PRIVATE)) continue;
+                StringBuilder signature = new StringBuilder("java.lang.invoke.MethodType.methodType(")
+                        .append(erasure(method.getReturnType())).append(".class");
+                for (VariableElement parameter : method.getParameters()) {
+                    signature.append(", ").append(erasure(parameter.asType())).append(".class");
+                }
+                signature.append(')');
+                out.println();
+                out.println("    private static final java.lang.invoke.MethodHandle HANDLE_" + i
+                        + " = RepeatedMethod.findPrivate(" + typeName + ".class, \"" + method.getSimpleName() + "\", "
+                        + method.getModifiers().contains(Modifier.STATIC) + ", " + signature + ");");
+            }
+
+            out.println();
+            out.println("    @Override");
+            out.println("    public RepeatedMethod[] methods() {");
+            out.println("        return new RepeatedMethod[] {");
+            for (int i = 0; i < methods.size(); i++) {
+                writeMethod(out, typeName, methods.get(i), i);
+                out.println(i + 1 < methods.size() ? "," : "");
+            }
+            out.println("        };");
+            out.println("    }");
+            out.println("}");
+        }
+    }
+
+    private void writeMethod(PrintWriter out, String typeName, ExecutableElement method, int index) {
+        Set<Modifier> modifiers = method.getModifiers();
+        boolean isPrivate = modifiers.contains(Modifier.PRIVATE);
+        boolean isStatic = modifiers.contains(Modifier.STATIC);
+        boolean hasResult = method.getReturnType().getKind() != TypeKind.VOID;
+        Repeat repeat = method.getAnnotation(Repeat.class);
+        String modifierFlags = (isPrivate ? "java.lang.reflect.Modifier.PRIVATE" : "java.lang.reflect.Modifier.PROTECTED")
+                + (isStatic ? " | java.lang.reflect.Modifier.STATIC" : "");
+
+        List<String> args = new ArrayList<>();
+        for (VariableElement parameter : method.getParameters()) {
+            String literal = literalFor(parameter.asType());
+            if (literal == null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                        "Для типа " + parameter.asType() + " нет значения по умолчанию — будет передан null", parameter);
+                literal = "(" + erasure(parameter.asType()) + ") null";
+            }
+            args.add(literal);
+        }
+
+        String call;
+        if (isPrivate) {
+            List<String> handleArgs = new ArrayList<>();
+            if (!isStatic) handleArgs.add("(" + typeName + ") target");
+            handleArgs.addAll(args);
+            call = (hasResult ? "(" + erasure(method.getReturnType()) + ") " : "")
+                    + "HANDLE_" + index + ".invokeExact(" + String.join(", ", handleArgs) + ")";
+        } else {
+            call = (isStatic ? typeName : "((" + typeName + ") target)")
+                    + "." + method.getSimpleName() + "(" + String.join(", ", args) + ")";
+        }
+
+        out.println("            new RepeatedMethod(\"" + method.getSimpleName() + "\", " + modifierFlags + ", "
+                + repeat.value() + ", " + repeat.concurrency() + ", " + hasResult + ") {");
+        out.println("                @Override");
+        out.println("                public Object invoke(Object target) throws java.lang.reflect.InvocationTargetException {");
+        out.println("                    try {");
+        if (hasResult) {
+            out.println("                        return " + call + ";");
+        } else {
+            out.println("                        " + call + ";");
+            out.println("                        return null;");
+        }
+        out.println("                    } catch (Throwable t) {");
+        out.println("                        throw new java.lang.reflect.InvocationTargetException(t);");
+        out.println("                    }");
+        out.println("                }");
+        if (hasResult) {
+            // результат не упаковывается: invokeExact требует точного типа, поэтому он присваивается переменной
+            String discard = isPrivate
+                    ? erasure(method.getReturnType()) + " discarded = " + call
+                    : call;
+            out.println();
+            out.println("                @Override");
+            out.println("                public void invokeDiscarding(Object target) throws java.lang.reflect.InvocationTargetException {");
+            out.println("                    try {");
+            out.println("                        " + discard + ";");
+            out.println("                    } catch (Throwable t) {");
+            out.println("                        throw new java.lang.reflect.InvocationTargetException(t);");
+            out.println("                    }");
+            out.println("                }");
+        }
+        out.print("            }");
+    }
+
+    private String literalFor(TypeMirror type) {
+        return DEFAULT_LITERALS.get(erasure(type));
+    }
+
+    private String erasure(TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+}
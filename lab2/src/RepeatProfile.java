@@ -0,0 +1,169 @@
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Итог профилирования методов {@link Repeat}
+ * ({@link ReflectionExecutor#profile(Object, int, int)}): по каждому методу — время
+ * и объём выделенной памяти каждого измеренного вызова и сводка min/mean/p99
+ */
+public final class RepeatProfile {
+
+    private final List<MethodProfile> methods;
+
+    RepeatProfile(List<MethodProfile> methods) {
+        this.methods = Collections.unmodifiableList(methods);
+    }
+
+    /**
+     * Возвращает профили методов в порядке, в котором их вернул план класса
+     */
+    public List<MethodProfile> getMethods() {
+        return methods;
+    }
+
+    /**
+     * Печатает по строке на метод: время и выделенная память на вызов
+     */
+    public void print(PrintStream out) {
+        for (MethodProfile method : methods) {
+            out.println("Метод: " + method.getName()
+                    + " | модификатор: " + ReflectionExecutor.modifierName(method.getModifiers())
+                    + " | прогрев: " + method.getWarmupCount()
+                    + " | замеров: " + method.getSampleCount()
+                    + (method.getFailureCount() > 0 ? " | ошибок: " + method.getFailureCount() : ""));
+            out.println("    время, нс: min=" + method.getMinNanos()
+                    + " mean=" + String.format("%.1f", method.getMeanNanos())
+                    + " p99=" + method.getP99Nanos());
+            if (method.isAllocationMeasured()) {
+                out.println("    память, байт: min=" + method.getMinBytes()
+                        + " mean=" + String.format("%.1f", method.getMeanBytes())
+                        + " p99=" + method.getP99Bytes());
+            } else {
+                out.println("    память: подсчёт выделений не поддерживается JVM");
+            }
+        }
+    }
+
+    /**
+     * Замеры одного метода. Накладные расходы самого замера (пустой интервал)
+     * уже вычтены из каждого значения
+     */
+    public static final class MethodProfile {
+
+        private final RepeatedMethod method;
+        private final int warmupCount;
+        private final int failureCount;
+        private final Exception firstError;
+        private final long[] sortedNanos;
+        private final long[] sortedBytes;
+        private final double meanNanos;
+        private final double meanBytes;
+
+        /**
+         * @param bytes выделенная память по вызовам или null, если JVM её не считает.
+         *              Массивы сортируются на месте
+         */
+        MethodProfile(RepeatedMethod method, int warmupCount, long[] nanos, long[] bytes,
+                      int failureCount, Exception firstError) {
+            this.method = method;
+            this.warmupCount = warmupCount;
+            this.failureCount = failureCount;
+            this.firstError = firstError;
+            Arrays.sort(nanos);
+            this.sortedNanos = nanos;
+            this.meanNanos = mean(nanos);
+            if (bytes != null) {
+                Arrays.sort(bytes);
+                this.meanBytes = mean(bytes);
+            } else {
+                this.meanBytes = Double.NaN;
+            }
+            this.sortedBytes = bytes;
+        }
+
+        public String getName() {
+            return method.getName();
+        }
+
+        public int getModifiers() {
+            return method.getModifiers();
+        }
+
+        /**
+         * Возвращает количество вызовов прогрева (не входят в замеры)
+         */
+        public int getWarmupCount() {
+            return warmupCount;
+        }
+
+        /**
+         * Возвращает количество измеренных вызовов
+         */
+        public int getSampleCount() {
+            return sortedNanos.length;
+        }
+
+        /**
+         * Возвращает количество измеренных вызовов, завершившихся исключением
+         */
+        public int getFailureCount() {
+            return failureCount;
+        }
+
+        /**
+         * Возвращает первое исключение среди измеренных вызовов или null
+         */
+        public Exception getFirstError() {
+            return firstError;
+        }
+
+        public long getMinNanos() {
+            return sortedNanos.length == 0 ? 0 : sortedNanos[0];
+        }
+
+        public double getMeanNanos() {
+            return meanNanos;
+        }
+
+        public long getP99Nanos() {
+            return percentile(sortedNanos, 0.99);
+        }
+
+        /**
+         * Возвращает true, если JVM считает выделенную потоком память
+         */
+        public boolean isAllocationMeasured() {
+            return sortedBytes != null;
+        }
+
+        public long getMinBytes() {
+            return sortedBytes == null || sortedBytes.length == 0 ? 0 : sortedBytes[0];
+        }
+
+        public double getMeanBytes() {
+            return meanBytes;
+        }
+
+        public long getP99Bytes() {
+            return sortedBytes == null ? 0 : percentile(sortedBytes, 0.99);
+        }
+
+        private static double mean(long[] values) {
+            if (values.length == 0) return 0;
+            double sum = 0;
+            for (long v : values) sum += v;
+            return sum / values.length;
+        }
+
+        /**
+         * Перцентиль методом ближайшего ранга по отсортированному массиву
+         */
+        private static long percentile(long[] sorted, double p) {
+            if (sorted.length == 0) return 0;
+            int rank = (int) Math.ceil(p * sorted.length);
+            return sorted[Math.max(rank, 1) - 1];
+        }
+    }
+}
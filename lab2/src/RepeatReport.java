@@ -0,0 +1,163 @@
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Итог параллельного выполнения методов {@link Repeat}
+ * ({@link ReflectionExecutor#executeConcurrently(Object)}): по каждому методу —
+ * результаты и исключения всех вызовов в порядке номеров вызова
+ */
+public final class RepeatReport {
+
+    private final List<MethodReport> methods;
+
+    RepeatReport(List<MethodReport> methods) {
+        this.methods = Collections.unmodifiableList(methods);
+    }
+
+    /**
+     * Возвращает отчёты по методам в порядке, в котором их вернул план класса
+     */
+    public List<MethodReport> getMethods() {
+        return methods;
+    }
+
+    /**
+     * Возвращает количество вызовов, завершившихся исключением
+     */
+    public int getFailureCount() {
+        int failures = 0;
+        for (MethodReport method : methods) {
+            for (Invocation invocation : method.invocations) {
+                if (invocation.isFailed()) failures++;
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Печатает отчёт в том же виде, что и последовательный вызов: результаты в {@code out},
+     * исключения в {@code err}
+     */
+    public void print(PrintStream out, PrintStream err) {
+        for (MethodReport method : methods) {
+            out.println("Метод: " + method.getName()
+                    + " | модификатор: " + ReflectionExecutor.modifierName(method.getModifiers())
+                    + " | @Repeat(" + method.getRepeatCount() + ", concurrency = " + method.getConcurrency() + ")"
+                    + " | время: " + String.format("%.3f мс", method.getWallNanos() / 1e6));
+            for (Invocation invocation : method.invocations) {
+                String prefix = "Вызов " + (invocation.index + 1) + "/" + method.getRepeatCount() + ": ";
+                if (invocation.error instanceof InvocationTargetException) {
+                    err.println(prefix + "Исключение в вызываемом методе: "
+                            + ((InvocationTargetException) invocation.error).getTargetException());
+                } else if (invocation.error != null) {
+                    err.println(prefix + "Ошибка при вызове метода " + method.getName() + ": "
+                            + invocation.error.getMessage());
+                } else if (method.hasResult) {
+                    out.println(prefix + "Возвращено: " + invocation.result);
+                } else {
+                    out.println(prefix + "выполнен за " + String.format("%.1f мкс", invocation.nanos / 1e3));
+                }
+            }
+            out.println();
+        }
+    }
+
+    /**
+     * Вызовы одного метода
+     */
+    public static final class MethodReport {
+
+        private final RepeatedMethod method;
+        private final boolean hasResult;
+        private final Invocation[] invocations;
+        private final long wallNanos;
+
+        MethodReport(RepeatedMethod method, Invocation[] invocations, long wallNanos) {
+            this.method = method;
+            this.hasResult = method.hasResult();
+            this.invocations = invocations;
+            this.wallNanos = wallNanos;
+        }
+
+        public String getName() {
+            return method.getName();
+        }
+
+        public int getModifiers() {
+            return method.getModifiers();
+        }
+
+        public int getRepeatCount() {
+            return method.getRepeatCount();
+        }
+
+        public int getConcurrency() {
+            return method.getConcurrency();
+        }
+
+        /**
+         * Возвращает время от запуска первого вызова до завершения последнего
+         */
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        /**
+         * Возвращает вызовы в порядке номеров (не в порядке завершения)
+         */
+        public List<Invocation> getInvocations() {
+            return List.of(invocations);
+        }
+    }
+
+    /**
+     * Один вызов метода: результат либо исключение
+     */
+    public static final class Invocation {
+
+        private final int index;
+        private final Object result;
+        private final Exception error;
+        private final long nanos;
+
+        Invocation(int index, Object result, Exception error, long nanos) {
+            this.index = index;
+            this.result = result;
+            this.error = error;
+            this.nanos = nanos;
+        }
+
+        /**
+         * Возвращает номер вызова, начиная с 0
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Возвращает результат метода (null для void и при ошибке)
+         */
+        public Object getResult() {
+            return result;
+        }
+
+        /**
+         * Возвращает {@link InvocationTargetException}, если исключение выбросил сам метод,
+         * IllegalAccessException или IllegalArgumentException, если метод не удалось вызвать,
+         * либо null
+         */
+        public Exception getError() {
+            return error;
+        }
+
+        public boolean isFailed() {
+            return error != null;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * Приёмник результатов пакетного вызова методов {@link Repeat}
+ * ({@link ReflectionExecutor#executeAll(java.util.Collection, RepeatSink)})
+ *
+ * Вызывается из потоков пула одновременно для разных объектов, поэтому реализация
+ * должна быть потокобезопасной. Исключение, выброшенное приёмником, прерывает пакетный вызов
+ */
+public interface RepeatSink {
+
+    /**
+     * Вызов метода завершился нормально
+     *
+     * @param target      объект, у которого вызывался метод
+     * @param method      вызванный метод
+     * @param repeatIndex номер повтора, начиная с 0
+     * @param result      результат метода (null для void и если {@link #needsResults()} — false)
+     * @param nanos       длительность вызова
+     */
+    void invoked(Object target, RepeatedMethod method, int repeatIndex, Object result, long nanos);
+
+    /**
+     * Вызов метода завершился исключением
+     *
+     * @param target      объект, у которого вызывался метод
+     * @param method      вызванный метод
+     * @param repeatIndex номер повтора, начиная с 0
+     * @param error       {@link java.lang.reflect.InvocationTargetException}, если исключение выбросил
+     *                    сам метод, иначе IllegalAccessException или IllegalArgumentException
+     * @param nanos       длительность вызова
+     */
+    void failed(Object target, RepeatedMethod method, int repeatIndex, Exception error, long nanos);
+
+    /**
+     * Возвращает false, если приёмнику результаты методов не нужны: тогда результат
+     * отбрасывается при вызове ({@link RepeatedMethod#invokeDiscarding(Object)}) и примитивы
+     * не упаковываются
+     */
+    default boolean needsResults() {
+        return true;
+    }
+}
@@ -0,0 +1,92 @@
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Приёмник {@link RepeatSink}, который только считает вызовы, ошибки и суммарное время
+ * по каждому методу. Счётчики — LongAdder, чтобы потоки пула не состязались за одну ячейку.
+ * Результаты методов не нужны, поэтому пакетный вызов их не упаковывает
+ */
+public class RepeatTotals implements RepeatSink {
+
+    /**
+     * Счётчики по методам. Ключ — объект плана: у всех объектов одного класса он общий
+     */
+    private final Map<RepeatedMethod, MethodTotals> totals = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean needsResults() {
+        return false;
+    }
+
+    @Override
+    public void invoked(Object target, RepeatedMethod method, int repeatIndex, Object result, long nanos) {
+        MethodTotals t = totalsFor(target, method);
+        t.calls.increment();
+        t.nanos.add(nanos);
+    }
+
+    @Override
+    public void failed(Object target, RepeatedMethod method, int repeatIndex, Exception error, long nanos) {
+        MethodTotals t = totalsFor(target, method);
+        t.calls.increment();
+        t.failures.increment();
+        t.nanos.add(nanos);
+    }
+
+    /**
+     * Возвращает общее количество вызовов всех методов
+     */
+    public long getCallCount() {
+        long calls = 0;
+        for (MethodTotals t : totals.values()) {
+            calls += t.calls.sum();
+        }
+        return calls;
+    }
+
+    /**
+     * Возвращает общее количество вызовов, завершившихся исключением
+     */
+    public long getFailureCount() {
+        long failures = 0;
+        for (MethodTotals t : totals.values()) {
+            failures += t.failures.sum();
+        }
+        return failures;
+    }
+
+    /**
+     * Печатает по строке на метод: количество вызовов, ошибок и среднее время вызова
+     */
+    public void print(PrintStream out) {
+        for (Map.Entry<RepeatedMethod, MethodTotals> e : totals.entrySet()) {
+            MethodTotals t = e.getValue();
+            long calls = t.calls.sum();
+            out.println(t.typeName + "." + e.getKey().getName()
+                    + " | вызовов: " + calls
+                    + " | ошибок: " + t.failures.sum()
+                    + " | среднее время: " + String.format("%.1f нс", calls == 0 ? 0.0 : (double) t.nanos.sum() / calls));
+        }
+    }
+
+    private MethodTotals totalsFor(Object target, RepeatedMethod method) {
+        MethodTotals t = totals.get(method);
+        if (t == null) {
+            t = totals.computeIfAbsent(method, m -> new MethodTotals(target.getClass().getName()));
+        }
+        return t;
+    }
+
+    private static final class MethodTotals {
+        final String typeName;
+        final LongAdder calls = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+
+        MethodTotals(String typeName) {
+            this.typeName = typeName;
+        }
+    }
+}
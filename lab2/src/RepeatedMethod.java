@@ -0,0 +1,107 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Подготовленный вызов одного метода, помеченного {@link Repeat}: имя, модификатор,
+ * количество повторов и сам вызов с аргументами по умолчанию.
+ * Экземпляры создаёт либо сгенерированный {@link RepeatInvoker}, либо
+ * {@link ReflectionExecutor} через рефлексию
+ */
+public abstract class RepeatedMethod {
+
+    private final String name;
+    private final int modifiers;
+    private final int repeatCount;
+    private final int concurrency;
+    private final boolean hasResult;
+
+    /**
+     * @param name        имя метода
+     * @param modifiers   модификаторы метода (битовый набор {@link java.lang.reflect.Modifier})
+     * @param repeatCount количество повторов из аннотации
+     * @param hasResult   true, если метод возвращает значение (не void)
+     */
+    protected RepeatedMethod(String name, int modifiers, int repeatCount, boolean hasResult) {
+        this(name, modifiers, repeatCount, 1, hasResult);
+    }
+
+    /**
+     * @param name        имя метода
+     * @param modifiers   модификаторы метода (битовый набор {@link java.lang.reflect.Modifier})
+     * @param repeatCount количество повторов из аннотации
+     * @param concurrency наибольшее количество одновременных повторов из аннотации
+     * @param hasResult   true, если метод возвращает значение (не void)
+     */
+    protected RepeatedMethod(String name, int modifiers, int repeatCount, int concurrency, boolean hasResult) {
+        this.name = name;
+        this.modifiers = modifiers;
+        this.repeatCount = repeatCount;
+        this.concurrency = concurrency;
+        this.hasResult = hasResult;
+    }
+
+    /**
+     * Вызывает метод у {@code target}
+     *
+     * @param target объект, у которого вызывается метод
+     * @return результат метода (null для void)
+     * @throws InvocationTargetException если исключение выбросил сам метод
+     * @throws IllegalAccessException    если метод недоступен
+     */
+    public abstract Object invoke(Object target) throws InvocationTargetException, IllegalAccessException;
+
+    /**
+     * Вызывает метод у {@code target}, отбрасывая результат. Подготовленные вызовы
+     * переопределяют его так, чтобы примитивный результат не упаковывался и сам вызов
+     * ничего не выделял; по умолчанию — {@link #invoke(Object)}
+     *
+     * @param target объект, у которого вызывается метод
+     * @throws InvocationTargetException если исключение выбросил сам метод
+     * @throws IllegalAccessException    если метод недоступен
+     */
+    public void invokeDiscarding(Object target) throws InvocationTargetException, IllegalAccessException {
+        invoke(target);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getModifiers() {
+        return modifiers;
+    }
+
+    public int getRepeatCount() {
+        return repeatCount;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public boolean hasResult() {
+        return hasResult;
+    }
+
+    /**
+     * Метод находит private метод класса для сгенерированного кода. Вызывается при инициализации
+     * сгенерированного класса: если метод недоступен, класс не загрузится
+     * и {@link ReflectionExecutor} перейдёт к рефлексии
+     *
+     * @param type     класс, объявивший метод
+     * @param name     имя метода
+     * @param isStatic true для статического метода
+     * @param signature тип метода (без получателя)
+     * @return MethodHandle метода; у нестатического первым параметром идёт получатель
+     */
+    protected static MethodHandle findPrivate(Class<?> type, String name, boolean isStatic, MethodType signature) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            return isStatic ? lookup.findStatic(type, name, signature) : lookup.findVirtual(type, name, signature);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Метод " + type.getName() + "." + name + " недоступен", e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * Класс, имитирующий датчики сварочного поста. Методы ждут ответа датчика и ничего
+ * не печатают, поэтому на них виден параллельный режим
+ * {@link ReflectionExecutor#executeConcurrently(Object)}: ожидания перекрываются,
+ * а результаты печатаются из отчёта после завершения всех вызовов
+ */
+public class WeldSensor {
+
+    /**
+     * Время ответа датчика в миллисекундах
+     */
+    private static final long RESPONSE_MILLIS = 50;
+
+    /**
+     * Тестовый меод. Действие: Считывает температуру шва. Аннотировано на 4 повтора,
+     * до 4 одновременно
+     *
+     * @return температура в градусах
+     */
+    @Repeat(value = 4, concurrency = 4)
+    protected double readTemperature() throws InterruptedException {
+        Thread.sleep(RESPONSE_MILLIS);
+        return 1520.0;
+    }
+
+    /**
+     * Тестовый меод. Действие: Считывает ток дуги. Аннотировано на 4 повтора, по 2 одновременно
+     *
+     * @return сила тока в амперах
+     */
+    @Repeat(value = 4, concurrency = 2)
+    private int readCurrent() throws InterruptedException {
+        Thread.sleep(RESPONSE_MILLIS);
+        return 120;
+    }
+
+    /**
+     * Тестовый меод. Действие: Калибрует датчик. Всегда завершается исключением —
+     * для демонстрации ошибок в отчёте
+     *
+     * @return не возвращается
+     */
+    @Repeat(2)
+    private boolean calibrate() {
+        throw new IllegalStateException("датчик не откалиброван");
+    }
+}
@@ -0,0 +1,70 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время загрузки словаря (конструктор Dictionary) из текстового файла и из бинарного снимка
+ * Каждый замер — одна полная загрузка, поэтому используется режим SingleShotTime
+ * Словарь на 10M записей требует нескольких гигабайт кучи; для быстрого прогона:
+ *     java -jar target/benchmarks.jar DictionaryLoad -p entries=10000,1000000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class DictionaryLoadBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    int entries;
+
+    @Param({"text", "snapshot"})
+    String format;
+
+    private Path directory;
+    private String file;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        directory = Files.createTempDirectory("lab3-bench");
+        Path text = directory.resolve("dictionary.txt");
+        SyntheticData.writeDictionary(text, entries);
+        if (format.equals("snapshot")) {
+            Path snapshot = directory.resolve("dictionary.bin");
+            Lab3.compileSnapshot(text.toString(), snapshot);
+            Files.delete(text);
+            file = snapshot.toString();
+        } else {
+            file = text.toString();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(Path.of(file));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public int load() {
+        return Lab3.size(Lab3.loadDictionary(file));
+    }
+}
@@ -0,0 +1,113 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Lab3 — доступ к классам переводчика из пакета бенчмарков
+ * Классы lab3 лежат в пакете по умолчанию, а JMH требует, чтобы бенчмарки были в именованном пакете;
+ * импортировать классы из пакета по умолчанию нельзя, поэтому они связываются по имени
+ * Дескрипторы методов хранятся в static final полях, так что JIT встраивает вызовы
+ * и обращение через них не искажает измерения
+ */
+final class Lab3 {
+
+    private static final MethodHandle NEW_DICTIONARY;
+    private static final MethodHandle DICTIONARY_SIZE;
+    private static final MethodHandle NEW_TRANSLATOR;
+    private static final MethodHandle TRANSLATE;
+    private static final MethodHandle WRITE_SNAPSHOT;
+    private static final MethodHandle GET_ENTRIES;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            Class<?> dictionary = Class.forName("Dictionary");
+            Class<?> translator = Class.forName("Translator");
+            Class<?> snapshot = Class.forName("DictionarySnapshot");
+
+            NEW_DICTIONARY = lookup.findConstructor(dictionary, MethodType.methodType(void.class, String.class))
+                    .asType(MethodType.methodType(Object.class, String.class));
+            DICTIONARY_SIZE = lookup.findVirtual(dictionary, "size", MethodType.methodType(int.class))
+                    .asType(MethodType.methodType(int.class, Object.class));
+            GET_ENTRIES = lookup.findVirtual(dictionary, "getEntries", MethodType.methodType(Map.class))
+                    .asType(MethodType.methodType(Map.class, Object.class));
+            NEW_TRANSLATOR = lookup.findConstructor(translator, MethodType.methodType(void.class, String.class))
+                    .asType(MethodType.methodType(Object.class, String.class));
+            TRANSLATE = lookup.findVirtual(translator, "translate", MethodType.methodType(String.class, String.class))
+                    .asType(MethodType.methodType(String.class, Object.class, String.class));
+            WRITE_SNAPSHOT = lookup.findStatic(snapshot, "write",
+                    MethodType.methodType(void.class, Map.class, Path.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Lab3() {
+    }
+
+    /**
+     * new Dictionary(filename)
+     */
+    static Object loadDictionary(String filename) {
+        try {
+            return (Object) NEW_DICTIONARY.invokeExact(filename);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * dictionary.size()
+     */
+    static int size(Object dictionary) {
+        try {
+            return (int) DICTIONARY_SIZE.invokeExact(dictionary);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * new Translator(dictionaryFile)
+     */
+    static Object newTranslator(String dictionaryFile) {
+        try {
+            return (Object) NEW_TRANSLATOR.invokeExact(dictionaryFile);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * translator.translate(line)
+     */
+    static String translate(Object translator, String line) {
+        try {
+            return (String) TRANSLATE.invokeExact(translator, line);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Собирает бинарный снимок текстового словаря (как DictionaryCompiler)
+     */
+    static void compileSnapshot(String textFile, Path snapshotFile) {
+        try {
+            Object dictionary = loadDictionary(textFile);
+            WRITE_SNAPSHOT.invokeExact((Map) GET_ENTRIES.invokeExact(dictionary), snapshotFile);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) return (RuntimeException) e;
+        if (e instanceof Error) throw (Error) e;
+        return new IllegalStateException(e);
+    }
+}
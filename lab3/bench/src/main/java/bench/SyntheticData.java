@@ -0,0 +1,230 @@
+package bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * SyntheticData — генератор синтетических словарей и текстов для бенчмарков
+ * Данные детерминированы (фиксированное зерно), поэтому результаты разных запусков сравнимы,
+ * а для запуска бенчмарков не нужны внешние файлы
+ *
+ * Словарь на N записей: 4/5 — одиночные слова, 1/5 — фразы из двух-трёх слов
+ * Слово с номером i собирается из слогов по цифрам i в системе счисления по числу слогов,
+ * перевод — из кириллических слогов с тем же номером; непереводимые слова начинаются с 'q',
+ * с которой не начинается ни один слог, поэтому в словаре их заведомо нет
+ *
+ * Запуск из командной строки:
+ *     java -cp benchmarks.jar bench.SyntheticData dictionary 1000000 dictionary.txt
+ *     java -cp benchmarks.jar bench.SyntheticData corpus phrases 10000 1000000 corpus.txt
+ */
+public final class SyntheticData {
+
+    private static final String[] SYLLABLES = {
+            "ba", "ko", "ri", "ne", "tu", "la", "mo", "si", "de", "fa", "gu", "hi", "jo", "ka", "lu", "me",
+            "no", "pa", "ro", "sa", "te", "vi", "wo", "ya", "zu", "bre", "cla", "dro", "fle", "gra", "pro", "str"
+    };
+
+    private static final String[] CYRILLIC_SYLLABLES = {
+            "ба", "ко", "ри", "не", "ту", "ла", "мо", "си", "де", "фа", "гу", "хи", "йо", "ка", "лу", "ме",
+            "но", "па", "ро", "са", "те", "ви", "во", "я", "зу", "бре", "кла", "дро", "фле", "гра", "про", "стр"
+    };
+
+    private static final String[] PUNCTUATION = {",", ".", "!", "?", ";", ":"};
+
+    /**
+     * Количество различных непереводимых слов в текстах
+     */
+    static final int UNKNOWN_POOL = 4096;
+
+    private static final long SEED = 20240917L;
+
+    /**
+     * Вид строк текста
+     */
+    public enum LineKind {
+        /** несколько известных слов */
+        SHORT,
+        /** длинная строка: известные и неизвестные слова, пунктуация */
+        LONG,
+        /** строка из многословных ключей словаря */
+        PHRASES,
+        /** только непереводимые слова */
+        UNKNOWN
+    }
+
+    private SyntheticData() {
+    }
+
+    /**
+     * Слово ключа с номером i (нижний регистр, латиница)
+     */
+    static String word(int i) {
+        return spell(i, SYLLABLES);
+    }
+
+    /**
+     * Перевод слова с номером i
+     */
+    static String translation(int i) {
+        return spell(i, CYRILLIC_SYLLABLES);
+    }
+
+    /**
+     * Непереводимое слово с номером i
+     */
+    static String unknownWord(int i) {
+        return "q" + spell(i, SYLLABLES);
+    }
+
+    private static String spell(int i, String[] syllables) {
+        StringBuilder sb = new StringBuilder(12);
+        int base = syllables.length;
+        int n = i;
+        // не менее двух слогов, чтобы слова не были слишком короткими
+        sb.append(syllables[n % base]);
+        n /= base;
+        do {
+            sb.append(syllables[n % base]);
+            n /= base;
+        } while (n > 0);
+        return sb.toString();
+    }
+
+    static int phraseCount(int entries) {
+        return entries / 5;
+    }
+
+    static int singleCount(int entries) {
+        return entries - phraseCount(entries);
+    }
+
+    /**
+     * Ключ j-й фразы: первое слово у всех фраз разное, поэтому ключи не повторяются
+     */
+    static String phrase(int j, int entries) {
+        int singles = singleCount(entries);
+        StringBuilder sb = new StringBuilder(32);
+        sb.append(word(j % singles)).append(' ').append(word((int) ((j * 31L + 7) % singles)));
+        if (j % 3 == 0) {
+            sb.append(' ').append(word((int) ((j * 17L + 3) % singles)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Записывает словарь формата "лево | право" на {@code entries} записей (UTF-8)
+     */
+    public static void writeDictionary(Path out, int entries) throws IOException {
+        int singles = singleCount(entries);
+        int phrases = phraseCount(entries);
+        try (BufferedWriter writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < singles; i++) {
+                writer.write(word(i));
+                writer.write(" | ");
+                writer.write(translation(i));
+                writer.write('\n');
+            }
+            for (int j = 0; j < phrases; j++) {
+                writer.write(phrase(j, entries));
+                writer.write(" | ");
+                writer.write(translation(j));
+                writer.write(' ');
+                writer.write(translation(j + 1));
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Создаёт {@code count} строк текста заданного вида для словаря на {@code entries} записей
+     */
+    public static String[] lines(LineKind kind, int count, int entries) {
+        Random random = new Random(SEED + kind.ordinal());
+        String[] lines = new String[count];
+        StringBuilder sb = new StringBuilder(1024);
+        for (int i = 0; i < count; i++) {
+            sb.setLength(0);
+            switch (kind) {
+                case SHORT:
+                    appendWords(sb, random, 6, entries, 0);
+                    break;
+                case LONG:
+                    appendWords(sb, random, 120, entries, 10);
+                    break;
+                case PHRASES:
+                    appendPhrases(sb, random, 12, entries);
+                    break;
+                case UNKNOWN:
+                    appendWords(sb, random, 20, entries, 100);
+                    break;
+            }
+            lines[i] = sb.toString();
+        }
+        return lines;
+    }
+
+    /**
+     * Дописывает слова через пробел; {@code unknownPercent} — доля непереводимых слов
+     */
+    private static void appendWords(StringBuilder sb, Random random, int words, int entries, int unknownPercent) {
+        int singles = singleCount(entries);
+        for (int w = 0; w < words; w++) {
+            if (w > 0) sb.append(' ');
+            String word = random.nextInt(100) < unknownPercent
+                    ? unknownWord(random.nextInt(UNKNOWN_POOL))
+                    : word(random.nextInt(singles));
+            appendDecorated(sb, random, word);
+        }
+    }
+
+    /**
+     * Дописывает многословные ключи словаря подряд
+     */
+    private static void appendPhrases(StringBuilder sb, Random random, int phrases, int entries) {
+        int count = phraseCount(entries);
+        for (int p = 0; p < phrases; p++) {
+            if (p > 0) sb.append(' ');
+            appendDecorated(sb, random, phrase(random.nextInt(count), entries));
+        }
+    }
+
+    /**
+     * Иногда пишет слово с заглавной буквы и добавляет знак препинания
+     */
+    private static void appendDecorated(StringBuilder sb, Random random, String text) {
+        if (random.nextInt(8) == 0) {
+            sb.append(Character.toUpperCase(text.charAt(0))).append(text, 1, text.length());
+        } else {
+            sb.append(text);
+        }
+        if (random.nextInt(6) == 0) {
+            sb.append(PUNCTUATION[random.nextInt(PUNCTUATION.length)]);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && args[0].equals("dictionary")) {
+            Path out = Paths.get(args[2]);
+            writeDictionary(out, Integer.parseInt(args[1]));
+            System.out.println("Словарь записан в: " + out);
+            return;
+        }
+        if (args.length == 5 && args[0].equals("corpus")) {
+            LineKind kind = LineKind.valueOf(args[1].toUpperCase());
+            String[] lines = lines(kind, Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+            Path out = Paths.get(args[4]);
+            Files.write(out, Arrays.asList(lines), StandardCharsets.UTF_8);
+            System.out.println("Текст записан в: " + out);
+            return;
+        }
+        System.err.println("Использование:");
+        System.err.println("    SyntheticData dictionary <записей> <файл>");
+        System.err.println("    SyntheticData corpus <short|long|phrases|unknown> <строк> <записей словаря> <файл>");
+    }
+}
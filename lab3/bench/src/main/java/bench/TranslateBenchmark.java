@@ -0,0 +1,83 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность и задержка Translator.translate(String) на строках разного вида:
+ *  - SHORT   — короткие строки из известных слов
+ *  - LONG    — длинные строки с пунктуацией и долей непереводимых слов
+ *  - PHRASES — строки из многословных ключей (длинные совпадения)
+ *  - UNKNOWN — только непереводимые слова (проверка слова и запись в сборщик)
+ * Кэш строк выключен, чтобы измерялся сам перевод
+ * Строки перебираются по кругу, у каждого потока — свой курсор
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class TranslateBenchmark {
+
+    private static final int LINES = 4096;
+
+    @Param({"100000"})
+    int entries;
+
+    @Param({"SHORT", "LONG", "PHRASES", "UNKNOWN"})
+    SyntheticData.LineKind kind;
+
+    private Object translator;
+    private String[] lines;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Path file = Files.createTempFile("lab3-bench", ".txt");
+        try {
+            SyntheticData.writeDictionary(file, entries);
+            translator = Lab3.newTranslator(file.toString());
+        } finally {
+            Files.delete(file);
+        }
+        lines = SyntheticData.lines(kind, LINES, entries);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public String throughput(Cursor cursor) {
+        return translateNext(cursor);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String latency(Cursor cursor) {
+        return translateNext(cursor);
+    }
+
+    private String translateNext(Cursor cursor) {
+        String line = lines[cursor.next];
+        cursor.next = (cursor.next + 1) & (LINES - 1);
+        return Lab3.translate(translator, line);
+    }
+}
@@ -0,0 +1,135 @@
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ReloadRaceCheck — проверка перезагрузки словаря во время перевода
+ *
+ * Несколько потоков переводят одну и ту же строку, пока другой поток переписывает словарь
+ * и вызывает {@link Translator#reloadDictionary()}. Все переводы словаря версии N оканчиваются
+ * на N, поэтому перевод, собранный из двух версий, сразу виден. Проверяется, что:
+ *  - каждый перевод целиком получен с одной версией словаря;
+ *  - в каждом потоке версии не убывают (новая версия не сменяется старой);
+ *  - после последней перезагрузки переводится последняя версия
+ * Проверка выполняется без кэша и с кэшем строк
+ *
+ * Запуск из каталога lab3:
+ *   javac -encoding UTF-8 -d out src/*.java src/exceptions/*.java checks/ReloadRaceCheck.java
+ *   java -cp out ReloadRaceCheck
+ * При ошибке процесс завершается с кодом 1
+ */
+public final class ReloadRaceCheck {
+
+    private static final String LINE = "dog look forward to the window, dog";
+    private static final int RELOADS = 200;
+    private static final int THREADS = 4;
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("reload-race");
+        Path file = dir.resolve("dictionary.txt");
+        try {
+            writeVersion(file, 0);
+            check(file, false);
+            check(file, true);
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+        System.out.println("ReloadRaceCheck: OK");
+    }
+
+    private static void check(Path file, boolean cached) throws Exception {
+        writeVersion(file, 0);
+        Translator translator = new Translator(file.toString());
+        if (cached) translator.enableCache(16);
+
+        AtomicBoolean reloading = new AtomicBoolean(true);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<Integer>> readers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            readers.add(pool.submit(() -> {
+                int last = -1;
+                int translations = 0;
+                while (reloading.get() || translations == 0) {
+                    int version = versionOf(translator.translate(LINE));
+                    if (version < last) {
+                        throw new AssertionError("версия словаря убыла: " + last + " -> " + version);
+                    }
+                    last = version;
+                    translations++;
+                }
+                return translations;
+            }));
+        }
+
+        try {
+            for (int v = 1; v <= RELOADS; v++) {
+                writeVersion(file, v);
+                translator.reloadDictionary();
+            }
+        } finally {
+            reloading.set(false);
+        }
+        long translations = 0;
+        for (Future<Integer> reader : readers) {
+            translations += reader.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        int finalVersion = versionOf(translator.translate(LINE));
+        if (finalVersion != RELOADS) {
+            throw new AssertionError("после перезагрузок переводится версия " + finalVersion + ", ожидалась " + RELOADS);
+        }
+        System.out.println((cached ? "с кэшем" : "без кэша") + ": переводов " + translations
+                + ", перезагрузок " + RELOADS);
+    }
+
+    /**
+     * Пишет словарь версии {@code v}: каждый перевод оканчивается номером версии.
+     * Файл заменяется атомарно, чтобы перезагрузка не прочитала его наполовину
+     */
+    private static void writeVersion(Path file, int v) throws Exception {
+        String text = "dog | собака" + v + "\n"
+                + "look | смотреть" + v + "\n"
+                + "look forward | ожидать" + v + "\n"
+                + "window | окно" + v + "\n";
+        Path tmp = Files.createTempFile(file.getParent(), "dictionary", ".tmp");
+        Files.write(tmp, text.getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Возвращает версию словаря, с которой получен перевод, или бросает AssertionError,
+     * если слова перевода взяты из разных версий
+     */
+    private static int versionOf(String translation) {
+        String expectedShape = "собака# ожидать# to the окно#, собака#";
+        String[] parts = translation.split("(?<=[а-я])(?=\\d)|(?<=\\d)(?=\\D)");
+        int version = -1;
+        StringBuilder shape = new StringBuilder();
+        for (String part : parts) {
+            if (!part.isEmpty() && Character.isDigit(part.charAt(0))) {
+                int v = Integer.parseInt(part);
+                if (version >= 0 && v != version) {
+                    throw new AssertionError("перевод собран из разных версий словаря: " + translation);
+                }
+                version = v;
+                shape.append('#');
+            } else {
+                shape.append(part);
+            }
+        }
+        if (!shape.toString().equals(expectedShape)) {
+            throw new AssertionError("неожиданный перевод: " + translation);
+        }
+        return version;
+    }
+}
@@ -0,0 +1,100 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ServerCheck — проверка {@link TranslationServer} под одновременной нагрузкой
+ *
+ * Несколько клиентов одновременно отправляют конвейером (не дожидаясь ответов) строки,
+ * уникальные для клиента, и читают ответы в отдельном потоке. Строки всех клиентов переводятся
+ * общими пакетами, поэтому проверяется, что каждый клиент получает ровно свои переводы
+ * в порядке отправки — ни чужих, ни пропущенных, ни переставленных
+ *
+ * Запуск из каталога lab3:
+ *   javac -encoding UTF-8 -d out src/*.java src/exceptions/*.java checks/ServerCheck.java
+ *   java -cp out ServerCheck
+ * При ошибке процесс завершается с кодом 1
+ */
+public final class ServerCheck {
+
+    private static final int CLIENTS = 16;
+    private static final int LINES_PER_CLIENT = 2000;
+
+    public static void main(String[] args) throws Exception {
+        Path dictionary = Files.createTempFile("server-check", ".txt");
+        try {
+            Files.write(dictionary, List.of("dog | собака", "look forward | ожидать", "window | окно"),
+                    StandardCharsets.UTF_8);
+            Translator translator = new Translator(dictionary.toString());
+            try (TranslationServer server = new TranslationServer(translator, 0)) {
+                ExecutorService pool = Executors.newFixedThreadPool(CLIENTS * 2);
+                try {
+                    List<Future<?>> clients = new ArrayList<>();
+                    for (int c = 0; c < CLIENTS; c++) {
+                        int client = c;
+                        clients.add(pool.submit(() -> {
+                            runClient(server.getPort(), client, pool);
+                            return null;
+                        }));
+                    }
+                    for (Future<?> client : clients) {
+                        client.get(60, TimeUnit.SECONDS);
+                    }
+                } finally {
+                    pool.shutdownNow();
+                }
+            }
+        } finally {
+            Files.deleteIfExists(dictionary);
+        }
+        System.out.println("ServerCheck: OK (клиентов " + CLIENTS + ", строк " + CLIENTS * LINES_PER_CLIENT + ")");
+    }
+
+    private static void runClient(int port, int client, ExecutorService pool) throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             BufferedReader reader = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            // запись в отдельном потоке: иначе клиент и сервер могли бы заблокироваться,
+            // заполнив буферы сокета друг другу
+            Future<?> sender = pool.submit(() -> {
+                BufferedWriter writer = new BufferedWriter(
+                        new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+                for (int i = 0; i < LINES_PER_CLIENT; i++) {
+                    writer.write(request(client, i));
+                    writer.write('\n');
+                }
+                writer.flush();
+                return null;
+            });
+            for (int i = 0; i < LINES_PER_CLIENT; i++) {
+                String response = reader.readLine();
+                String expected = expected(client, i);
+                if (!expected.equals(response)) {
+                    throw new AssertionError("клиент " + client + ", строка " + i + ": ожидалось \""
+                            + expected + "\", получено \"" + response + "\"");
+                }
+            }
+            sender.get();
+        }
+    }
+
+    private static String request(int client, int i) {
+        return "Dog c" + client + " look forward to the window n" + i + "!";
+    }
+
+    private static String expected(int client, int i) {
+        return "собака c" + client + " ожидать to the окно n" + i + "!";
+    }
+}
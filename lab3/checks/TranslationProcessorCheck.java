@@ -0,0 +1,355 @@
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TranslationProcessorCheck — проверка спроса и отмены в {@link TranslationProcessor}
+ *
+ * Источник отдаёт строки из своего потока ровно по запросу и считает запрошенное; получатель
+ * запрашивает переводы маленькими порциями из другого потока. Проверяется, что:
+ *  - все переводы приходят по порядку и совпадают с {@link Translator#translate(String)};
+ *  - получатель никогда не получает больше, чем запросил;
+ *  - звено не запрашивает у источника больше {@code capacity} строк сверх отданных получателю;
+ *  - пока получатель не просит новых переводов, принятые строки переводятся заранее;
+ *  - отмена получателем отменяет источник, и после неё сигналов больше нет;
+ *  - источник, приславший больше запрошенного, приводит к onError
+ *
+ * Запуск из каталога lab3:
+ *   javac -encoding UTF-8 -d out src/*.java src/exceptions/*.java checks/TranslationProcessorCheck.java
+ *   java -cp out TranslationProcessorCheck
+ * При ошибке процесс завершается с кодом 1
+ */
+public final class TranslationProcessorCheck {
+
+    private static final int LINES = 20_000;
+    private static final int BATCH = 16;
+    private static final int CAPACITY = 64;
+
+    public static void main(String[] args) throws Exception {
+        Path dictionary = Files.createTempFile("processor-check", ".txt");
+        try {
+            Files.write(dictionary, List.of("dog | собака", "look forward | ожидать", "window | окно"),
+                    StandardCharsets.UTF_8);
+            Translator translator = new Translator(dictionary.toString());
+            checkDemand(translator);
+            checkPrefetch(translator);
+            checkCancel(translator);
+            checkOverflow(translator);
+        } finally {
+            Files.deleteIfExists(dictionary);
+        }
+        System.out.println("TranslationProcessorCheck: OK");
+    }
+
+    private static String line(int i) {
+        return "dog " + i + " look forward to the window";
+    }
+
+    /**
+     * Все строки, получатель просит по 1–7 переводов из своего потока
+     */
+    private static void checkDemand(Translator translator) throws Exception {
+        TranslationProcessor processor = new TranslationProcessor(translator, ForkJoinPool.commonPool(), BATCH, CAPACITY);
+        Source source = new Source(processor, LINES, 0);
+        CompletableFuture<List<String>> done = new CompletableFuture<>();
+
+        processor.subscribe(new Flow.Subscriber<String>() {
+            private final List<String> received = new ArrayList<>();
+            private Flow.Subscription subscription;
+            private long requested;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                requestMore();
+            }
+
+            @Override
+            public void onNext(String item) {
+                received.add(item);
+                if (received.size() > requested) {
+                    done.completeExceptionally(new AssertionError("получено " + received.size()
+                            + " переводов при запрошенных " + requested));
+                }
+                long inside = source.requested() - received.size();
+                if (inside > CAPACITY) {
+                    done.completeExceptionally(new AssertionError("у источника запрошено " + inside
+                            + " строк сверх отданных при capacity " + CAPACITY));
+                }
+                if (received.size() == requested) {
+                    // следующий запрос — из другого потока, как у медленного получателя
+                    CompletableFuture.runAsync(this::requestMore);
+                }
+            }
+
+            private void requestMore() {
+                int n = ThreadLocalRandom.current().nextInt(1, 8);
+                requested += n;
+                subscription.request(n);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(received);
+            }
+        });
+        source.start();
+
+        List<String> received = done.get(60, TimeUnit.SECONDS);
+        if (received.size() != LINES) {
+            throw new AssertionError("получено " + received.size() + " переводов из " + LINES);
+        }
+        for (int i = 0; i < LINES; i++) {
+            String expected = translator.translate(line(i));
+            if (!expected.equals(received.get(i))) {
+                throw new AssertionError("перевод " + i + ": ожидалось \"" + expected
+                        + "\", получено \"" + received.get(i) + "\"");
+            }
+        }
+    }
+
+    /**
+     * Получатель просит один перевод и больше ничего: звено должно перевести заранее
+     * не только первый пакет, но и остальные принятые строки в пределах capacity
+     */
+    private static void checkPrefetch(Translator translator) throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            TranslationProcessor processor = new TranslationProcessor(translator, executor, BATCH, CAPACITY);
+            Source source = new Source(processor, LINES, 0);
+            CountDownLatch first = new CountDownLatch(1);
+
+            processor.subscribe(new Flow.Subscriber<String>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onNext(String item) {
+                    first.countDown();
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                }
+
+                @Override
+                public void onComplete() {
+                }
+            });
+            translator.getMetrics().reset();
+            source.start();
+
+            if (!first.await(30, TimeUnit.SECONDS)) {
+                throw new AssertionError("первый перевод не получен");
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            long translated;
+            while ((translated = translator.getMetrics().getLinesTranslated()) < CAPACITY
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            if (translated < CAPACITY) {
+                throw new AssertionError("заранее переведено " + translated + " строк из " + CAPACITY
+                        + " принятых (пакет " + BATCH + ")");
+            }
+            if (translated > CAPACITY) {
+                throw new AssertionError("переведено " + translated + " строк при capacity " + CAPACITY);
+            }
+            source.cancel();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Получатель отменяет подписку после части переводов
+     */
+    private static void checkCancel(Translator translator) throws Exception {
+        TranslationProcessor processor = new TranslationProcessor(translator, ForkJoinPool.commonPool(), BATCH, CAPACITY);
+        Source source = new Source(processor, LINES, 0);
+        int cancelAfter = 100;
+        CountDownLatch cancelled = new CountDownLatch(1);
+        List<String> afterCancel = Collections.synchronizedList(new ArrayList<>());
+
+        processor.subscribe(new Flow.Subscriber<String>() {
+            private Flow.Subscription subscription;
+            private int received;
+            private boolean cancelledHere;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(String item) {
+                if (cancelledHere) {
+                    afterCancel.add("onNext " + item);
+                    return;
+                }
+                if (++received == cancelAfter) {
+                    cancelledHere = true;
+                    subscription.cancel();
+                    cancelled.countDown();
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                afterCancel.add("onError " + throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                afterCancel.add("onComplete");
+            }
+        });
+        source.start();
+
+        if (!cancelled.await(30, TimeUnit.SECONDS)) {
+            throw new AssertionError("получатель не дождался " + cancelAfter + " переводов");
+        }
+        if (!source.awaitCancel(10, TimeUnit.SECONDS)) {
+            throw new AssertionError("отмена получателем не отменила источник");
+        }
+        // даём звену время подать лишние сигналы, если они есть
+        Thread.sleep(200);
+        if (!afterCancel.isEmpty()) {
+            throw new AssertionError("сигналы после отмены: " + afterCancel);
+        }
+    }
+
+    /**
+     * Источник присылает на одну строку больше запрошенного
+     */
+    private static void checkOverflow(Translator translator) throws Exception {
+        TranslationProcessor processor = new TranslationProcessor(translator, ForkJoinPool.commonPool(), BATCH, CAPACITY);
+        Source source = new Source(processor, LINES, 1);
+        CompletableFuture<Throwable> error = new CompletableFuture<>();
+
+        processor.subscribe(new Flow.Subscriber<String>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(String item) {
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                error.complete(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                error.complete(null);
+            }
+        });
+        source.start();
+
+        Throwable failure = error.get(30, TimeUnit.SECONDS);
+        if (!(failure instanceof IllegalStateException)) {
+            throw new AssertionError("лишняя строка источника не привела к IllegalStateException: " + failure);
+        }
+        if (!source.awaitCancel(10, TimeUnit.SECONDS)) {
+            throw new AssertionError("после переполнения источник не отменён");
+        }
+    }
+
+    /**
+     * Источник строк: отдаёт их из своего потока по мере запросов.
+     * {@code extra} — сколько лишних строк прислать на первый запрос
+     */
+    private static final class Source implements Flow.Subscription {
+
+        private final TranslationProcessor processor;
+        private final int lines;
+        private final Object lock = new Object();
+        private final CountDownLatch cancelledLatch = new CountDownLatch(1);
+        private long requested;
+        private int extra;
+        private int sent;
+        private boolean cancelled;
+
+        Source(TranslationProcessor processor, int lines, int extra) {
+            this.processor = processor;
+            this.lines = lines;
+            this.extra = extra;
+        }
+
+        void start() {
+            processor.onSubscribe(this);
+            Thread thread = new Thread(this::emit, "check-source");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        long requested() {
+            synchronized (lock) {
+                return requested;
+            }
+        }
+
+        boolean awaitCancel(long timeout, TimeUnit unit) throws InterruptedException {
+            return cancelledLatch.await(timeout, unit);
+        }
+
+        private void emit() {
+            while (true) {
+                int next;
+                synchronized (lock) {
+                    while (!cancelled && sent < lines && sent >= requested + extra) {
+                        try {
+                            lock.wait();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                    if (cancelled) return;
+                    if (sent == lines) break;
+                    next = sent++;
+                }
+                processor.onNext(line(next));
+            }
+            processor.onComplete();
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (lock) {
+                requested = (requested + n < 0) ? Long.MAX_VALUE : requested + n;
+                lock.notifyAll();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (lock) {
+                cancelled = true;
+                lock.notifyAll();
+            }
+            cancelledLatch.countDown();
+        }
+    }
+}
@@ -0,0 +1,225 @@
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * CompactEntries — компактное хранилище пар "ключ -> перевод" словаря
+ * Ключи и переводы лежат в двух пулах UTF-8 ({@link Utf8Pool}), одинаковые переводы хранятся
+ * один раз. Ключ ищется по таблице с открытой адресацией, где хранятся только номера записей,
+ * поэтому на запись приходится несколько int вместо узла LinkedHashMap и двух объектов String
+ *
+ * Порядок обхода — порядок первого добавления ключа; повторный ключ заменяет перевод,
+ * как в LinkedHashMap. Снаружи карта доступна только для чтения
+ */
+final class CompactEntries extends AbstractMap<String, String> {
+
+    private static final int EMPTY = -1;
+
+    private final Utf8Pool keys;
+    private int[] keyHashes;
+    private int[] entryValues;
+    private int[] keySlots;
+
+    private final Utf8Pool values;
+    private int[] valueHashes;
+    private int[] valueSlots;
+
+    private final EntrySet entrySet = new EntrySet();
+
+    CompactEntries(int expectedEntries) {
+        int capacity = Math.max(16, expectedEntries);
+        keys = new Utf8Pool(capacity);
+        keyHashes = new int[capacity];
+        entryValues = new int[capacity];
+        keySlots = emptySlots(tableSize(capacity));
+        values = new Utf8Pool(16);
+        valueHashes = new int[16];
+        valueSlots = emptySlots(32);
+    }
+
+    /**
+     * Добавляет пару или заменяет перевод уже добавленного ключа
+     *
+     * @param key   нормализованный ключ
+     * @param value перевод
+     */
+    void add(String key, String value) {
+        int valueId = internValue(value);
+        int hash = key.hashCode();
+        int entry = find(key, hash);
+        if (entry != EMPTY) {
+            entryValues[entry] = valueId;
+            return;
+        }
+
+        entry = keys.add(key);
+        if (entry == keyHashes.length) {
+            keyHashes = Arrays.copyOf(keyHashes, entry * 2);
+            entryValues = Arrays.copyOf(entryValues, entry * 2);
+        }
+        keyHashes[entry] = hash;
+        entryValues[entry] = valueId;
+        if (keys.size() * 2 > keySlots.length) {
+            keySlots = emptySlots(keySlots.length * 2);
+            for (int i = 0; i < keys.size(); i++) {
+                place(keySlots, keyHashes[i], i);
+            }
+        } else {
+            place(keySlots, hash, entry);
+        }
+    }
+
+    /**
+     * Освобождает неиспользуемый запас массивов после загрузки
+     */
+    void trim() {
+        keys.trim();
+        values.trim();
+        keyHashes = Arrays.copyOf(keyHashes, keys.size());
+        entryValues = Arrays.copyOf(entryValues, keys.size());
+        valueHashes = Arrays.copyOf(valueHashes, values.size());
+    }
+
+    /**
+     * Возвращает номер записи по ключу или -1, если ключа нет
+     */
+    int find(String key) {
+        return find(key, key.hashCode());
+    }
+
+    /**
+     * Возвращает номер перевода записи в пуле {@link #valuePool()}
+     */
+    int valueId(int entry) {
+        return entryValues[entry];
+    }
+
+    /**
+     * Возвращает ключ записи
+     */
+    String key(int entry) {
+        return keys.get(entry);
+    }
+
+    /**
+     * Пул переводов без повторов; номера переводов — {@link #valueId(int)}
+     */
+    Utf8Pool valuePool() {
+        return values;
+    }
+
+    @Override
+    public String get(Object key) {
+        if (!(key instanceof String)) return null;
+        int entry = find((String) key);
+        return entry == EMPTY ? null : values.get(entryValues[entry]);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && find((String) key) != EMPTY;
+    }
+
+    @Override
+    public int size() {
+        return keys.size();
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        return entrySet;
+    }
+
+    private int find(String key, int hash) {
+        int mask = keySlots.length - 1;
+        for (int slot = mix(hash) & mask; keySlots[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int entry = keySlots[slot];
+            if (keyHashes[entry] == hash && keys.contentEquals(entry, key)) {
+                return entry;
+            }
+        }
+        return EMPTY;
+    }
+
+    private int internValue(String value) {
+        int hash = value.hashCode();
+        int mask = valueSlots.length - 1;
+        for (int slot = mix(hash) & mask; valueSlots[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int id = valueSlots[slot];
+            if (valueHashes[id] == hash && values.contentEquals(id, value)) {
+                return id;
+            }
+        }
+
+        int id = values.add(value);
+        if (id == valueHashes.length) {
+            valueHashes = Arrays.copyOf(valueHashes, id * 2);
+        }
+        valueHashes[id] = hash;
+        if (values.size() * 2 > valueSlots.length) {
+            valueSlots = emptySlots(valueSlots.length * 2);
+            for (int i = 0; i < values.size(); i++) {
+                place(valueSlots, valueHashes[i], i);
+            }
+        } else {
+            place(valueSlots, hash, id);
+        }
+        return id;
+    }
+
+    private static void place(int[] slots, int hash, int id) {
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while (slots[slot] != EMPTY) slot = (slot + 1) & mask;
+        slots[slot] = id;
+    }
+
+    /**
+     * Размер таблицы — степень двойки, заполненная не больше чем наполовину
+     */
+    private static int tableSize(int entries) {
+        return Integer.highestOneBit(Math.max(16, entries) * 2 - 1) << 1;
+    }
+
+    private static int mix(int h) {
+        h *= 0x85EBCA6B;
+        return h ^ (h >>> 16);
+    }
+
+    private static int[] emptySlots(int size) {
+        int[] slots = new int[size];
+        Arrays.fill(slots, EMPTY);
+        return slots;
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<String, String>> {
+
+        @Override
+        public Iterator<Map.Entry<String, String>> iterator() {
+            return new Iterator<Map.Entry<String, String>>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < keys.size();
+                }
+
+                @Override
+                public Map.Entry<String, String> next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    int entry = next++;
+                    return new AbstractMap.SimpleImmutableEntry<>(keys.get(entry), values.get(entryValues[entry]));
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return keys.size();
+        }
+    }
+}
@@ -1,79 +1,107 @@
 import exceptions.FileReadException;
 import exceptions.InvalidFileFormatException;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.LinkedHashMap;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Map;
 
 /**
- * Dictionary загружает пары "фраза | перевод" из файла и хранит их в памяти
- * Ключи нормализуются: trim + toLowerCase
+ * Dictionary загружает пары "фраза | перевод" из файла (UTF-8) и хранит их в памяти
+ * в компактном виде ({@link CompactEntries}): ключи и переводы — в общих массивах UTF-8,
+ * одинаковые переводы хранятся один раз
+ * Файл читается через отображение в память и разбирается параллельно ({@link MappedDictionaryReader})
+ * Ключи нормализуются: trim + нижний регистр (посимвольно, как при поиске в тексте)
+ * При загрузке по ключам строится пословное дерево {@link PhraseTrie} для поиска фраз
+ * Вместо текстового файла можно передать бинарный снимок {@link DictionarySnapshot} —
+ * тогда словарь открывается через отображение в память без разбора
+ * Индекс похожих слов {@link SuggestionIndex} строится при первом обращении: он нужен
+ * только для подсказок к непереведённым словам и не должен замедлять загрузку
  */
 public class Dictionary {
 
-    private final Map<String, String> entries = new LinkedHashMap<>();
+    private final Map<String, String> entries;
+    private final PhraseIndex phraseIndex;
+    private final long loadNanos;
+    private volatile SuggestionIndex suggestionIndex;
 
     /**
      * Загружает словарь из файла при создании
+     * Файл может быть текстовым словарём или бинарным снимком {@link DictionarySnapshot}:
+     * формат определяется по сигнатуре в начале файла
      *
-     * @param filename путь к файлу словаря (*.txt)
+     * @param filename путь к файлу словаря (*.txt) или снимка (*.bin)
      * @throws FileReadException             при проблемах с IO / файлом
      * @throws InvalidFileFormatException    при неверном формате строки
      */
     public Dictionary(String filename) throws FileReadException, InvalidFileFormatException {
-        loadFromFile(filename);
+        long started = System.nanoTime();
+        try {
+            Path path = Paths.get(filename);
+            if (DictionarySnapshot.isSnapshot(path)) {
+                DictionarySnapshot snapshot = DictionarySnapshot.open(path);
+                this.entries = snapshot.entries();
+                this.phraseIndex = snapshot;
+            } else {
+                CompactEntries loaded = new CompactEntries(estimateEntries(path));
+                this.phraseIndex = loadFromFile(path, loaded);
+                this.entries = loaded;
+            }
+        } catch (IOException | InvalidPathException ioe) {
+            throw new FileReadException("Ошибка при чтении файла \"" + filename + "\": " + ioe.getMessage(), ioe);
+        }
+        this.loadNanos = System.nanoTime() - started;
     }
 
-    private void loadFromFile(String filename) throws FileReadException, InvalidFileFormatException {
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            int lineNo = 1;
-            boolean any = false;
-
-            while ((line = reader.readLine()) != null) {
-                String raw = line.trim();
-                if (raw.isEmpty() || raw.startsWith("#")) {
-                    lineNo++;
-                    continue;
-                }
-
-                String[] parts = raw.split("\\|", 2);
-                if (parts.length != 2) {
-                    throw new InvalidFileFormatException(
-                            "Неверный формат в строке " + lineNo + ": \"" + line + "\". Ожидается 'лево | право'");
-                }
-
-                String left = parts[0].trim();
-                String right = parts[1].trim();
-
-                if (left.isEmpty() || right.isEmpty()) {
-                    throw new InvalidFileFormatException(
-                            "Пустая часть слова или перевода в строке " + lineNo + ": \"" + line + "\"");
-                }
+    private static PhraseTrie loadFromFile(Path path, CompactEntries entries)
+            throws IOException, InvalidFileFormatException {
+        int count = MappedDictionaryReader.read(path, entries::add);
 
-                // нормализация ключа: пробелы сводим, нижний регистр
-                String normKey = normalizeKey(left);
-                entries.put(normKey, right);
-                any = true;
-                lineNo++;
-            }
-
-            if (!any) {
-                throw new InvalidFileFormatException("Файл словаря пуст или не содержит пар 'лево | право'");
-            }
+        if (count == 0) {
+            throw new InvalidFileFormatException("Файл словаря пуст или не содержит пар 'лево | право'");
+        }
+        entries.trim();
 
-        } catch (IOException ioe) {
-            throw new FileReadException("Ошибка при чтении файла \"" + filename + "\": " + ioe.getMessage(), ioe);
+        // дерево строим по итоговым записям, чтобы повторные ключи вели себя так же, как в entries;
+        // переводы дерево берёт из того же пула по номерам
+        PhraseTrie trie = new PhraseTrie(entries.valuePool());
+        for (int e = 0; e < entries.size(); e++) {
+            trie.put(entries.key(e), entries.valueId(e));
         }
+        trie.trim();
+        return trie;
+    }
+
+    /**
+     * Оценка количества записей по размеру файла — начальная ёмкость хранилища
+     */
+    private static int estimateEntries(Path path) throws IOException {
+        return (int) Math.min(1 << 24, Files.size(path) / 32);
     }
 
     /**
      * Нормализует ключ словаря: убирает лишние пробелы и приводит к нижнему регистру
+     * Пробельные символы сводятся к одному пробелу без регулярных выражений
      */
-    private String normalizeKey(String s) {
-        return s.trim().replaceAll("\\s+", " ").toLowerCase();
+    static String normalizeKey(String s) {
+        String trimmed = s.trim();
+        StringBuilder sb = new StringBuilder(trimmed.length());
+        boolean inSpace = false;
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (Tokenizer.isSeparator(c)) {
+                inSpace = true;
+                continue;
+            }
+            if (inSpace) {
+                sb.append(' ');
+                inSpace = false;
+            }
+            sb.append(c);
+        }
+        return Tokenizer.fold(sb, 0, sb.length());
     }
 
     /**
@@ -83,6 +111,37 @@ public class Dictionary {
         return entries;
     }
 
+    /**
+     * Возвращает пословный индекс фраз для поиска самого длинного совпадения
+     */
+    public PhraseIndex getPhraseIndex() {
+        return phraseIndex;
+    }
+
+    /**
+     * Возвращает длительность загрузки словаря (разбор файла или открытие снимка и построение индекса), нс
+     */
+    public long getLoadNanos() {
+        return loadNanos;
+    }
+
+    /**
+     * Возвращает индекс похожих однословных ключей (строится при первом вызове)
+     */
+    SuggestionIndex getSuggestionIndex() {
+        SuggestionIndex index = suggestionIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = suggestionIndex;
+                if (index == null) {
+                    index = SuggestionIndex.build(entries.keySet());
+                    suggestionIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
     /**
      * Возвращает количество записей в словаре
      */
@@ -0,0 +1,38 @@
+import exceptions.FileReadException;
+import exceptions.InvalidFileFormatException;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/*
+    Компилятор текстового словаря в бинарный снимок (см. DictionarySnapshot)
+
+    Пример запуска:
+        java DictionaryCompiler dictionary.txt dictionary.bin
+
+    Полученный снимок можно передавать вместо текстового словаря:
+        java Main dictionary.bin
+*/
+
+public final class DictionaryCompiler {
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Использование: java DictionaryCompiler <словарь.txt> <снимок.bin>");
+            return;
+        }
+
+        try {
+            System.out.println("Загружаем словарь из: " + args[0]);
+            Dictionary dictionary = new Dictionary(args[0]);
+            DictionarySnapshot.write(dictionary.getEntries(), Paths.get(args[1]));
+            System.out.println("Снимок записан в: " + args[1] + ". Записей: " + dictionary.size());
+        } catch (InvalidFileFormatException e) {
+            System.err.println("Ошибка формата словаря: " + e.getMessage());
+        } catch (FileReadException e) {
+            System.err.println("Ошибка чтения словаря: " + e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Ошибка записи снимка: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,554 @@
+import exceptions.InvalidFileFormatException;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * DictionarySnapshot — заранее скомпилированный бинарный снимок словаря
+ * Снимок открывается через отображение файла в память без разбора данных: при открытии
+ * один раз проверяются заголовок и таблицы смещений, узлов и рёбер, чтобы повреждённый
+ * снимок отвергался сразу, а не ломал перевод; области ключей, переводов и слов
+ * подгружаются по мере обращения к ним
+ *
+ * Формат (big-endian, все смещения — int):
+ * <pre>
+ *   заголовок:      magic, version, entryCount, valueCount, wordCount, nodeCount, edgeCount, maxDepth
+ *   keyOffsets:     int[entryCount + 1]   — смещения ключей в keyData
+ *   entryValues:    int[entryCount]       — номер перевода для каждого ключа
+ *   valueOffsets:   int[valueCount + 1]   — смещения переводов в valueData
+ *   wordOffsets:    int[wordCount + 1]    — смещения слов в wordData (в символах)
+ *   nodes:          int[nodeCount * 3]    — первое ребро, число рёбер, номер перевода (-1 — нет)
+ *   edges:          int[edgeCount * 2]    — номер слова, номер дочернего узла
+ *   keyData:        ключи в UTF-8, отсортированы побайтно
+ *   valueData:      переводы в UTF-8 без повторов
+ *   wordData:       слова дерева фраз в UTF-16 для сравнения без декодирования
+ * </pre>
+ * Рёбра каждого узла отсортированы по слову, поэтому переход — двоичный поиск
+ * Размер снимка ограничен 2 ГБ
+ */
+public final class DictionarySnapshot implements PhraseIndex {
+
+    // первый байт 0x89 не встречается в начале текстового словаря (ни ASCII, ни UTF-8),
+    // поэтому текстовый файл нельзя принять за снимок
+    static final int MAGIC = 0x894C3344; // 0x89 "L3D"
+    static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 8 * Integer.BYTES;
+    private static final int NODE_BYTES = 3 * Integer.BYTES;
+    private static final int EDGE_BYTES = 2 * Integer.BYTES;
+
+    private final ByteBuffer buffer;
+    private final int entryCount;
+    private final int maxDepth;
+    private final int maxWordLength;
+
+    private final int keyOffsetsPos;
+    private final int entryValuesPos;
+    private final int valueOffsetsPos;
+    private final int wordOffsetsPos;
+    private final int nodesPos;
+    private final int edgesPos;
+    private final int keyDataPos;
+    private final int valueDataPos;
+    private final int wordDataPos;
+
+    private final Map<String, String> entries = new SnapshotEntries();
+
+    private DictionarySnapshot(ByteBuffer buffer) throws InvalidFileFormatException {
+        this.buffer = buffer;
+        long size = buffer.limit();
+        if (size < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new InvalidFileFormatException("Файл не является снимком словаря");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new InvalidFileFormatException("Неподдерживаемая версия снимка словаря: " + buffer.getInt(4));
+        }
+
+        entryCount = buffer.getInt(8);
+        int valueCount = buffer.getInt(12);
+        int wordCount = buffer.getInt(16);
+        int nodeCount = buffer.getInt(20);
+        int edgeCount = buffer.getInt(24);
+        maxDepth = buffer.getInt(28);
+        if (entryCount < 0 || valueCount < 0 || wordCount < 0 || nodeCount < 1 || edgeCount < 0 || maxDepth < 0) {
+            throw new InvalidFileFormatException("Снимок словаря повреждён: недопустимые размеры в заголовке");
+        }
+
+        // все смещения считаются в long: при повреждённом заголовке int переполнился бы
+        long pos = HEADER_BYTES;
+        keyOffsetsPos = checkedPos(pos, size);
+        pos += (entryCount + 1L) * Integer.BYTES;
+        entryValuesPos = checkedPos(pos, size);
+        pos += (long) entryCount * Integer.BYTES;
+        valueOffsetsPos = checkedPos(pos, size);
+        pos += (valueCount + 1L) * Integer.BYTES;
+        wordOffsetsPos = checkedPos(pos, size);
+        pos += (wordCount + 1L) * Integer.BYTES;
+        nodesPos = checkedPos(pos, size);
+        pos += (long) nodeCount * NODE_BYTES;
+        edgesPos = checkedPos(pos, size);
+        pos += (long) edgeCount * EDGE_BYTES;
+        keyDataPos = checkedPos(pos, size);
+        pos += dataLength(keyOffsetsPos + (long) entryCount * Integer.BYTES);
+        valueDataPos = checkedPos(pos, size);
+        pos += dataLength(valueOffsetsPos + (long) valueCount * Integer.BYTES);
+        wordDataPos = checkedPos(pos, size);
+        pos += dataLength(wordOffsetsPos + (long) wordCount * Integer.BYTES) * Character.BYTES;
+
+        if (pos != size) {
+            throw new InvalidFileFormatException("Снимок словаря повреждён: ожидаемый размер " + pos + ", фактический " + size);
+        }
+
+        checkOffsets(keyOffsetsPos, entryCount, "ключей");
+        checkOffsets(valueOffsetsPos, valueCount, "переводов");
+        maxWordLength = checkOffsets(wordOffsetsPos, wordCount, "слов");
+        for (int i = 0; i < entryCount; i++) {
+            int valueId = entryValue(i);
+            if (valueId < 0 || valueId >= valueCount) {
+                throw corrupted("номер перевода " + valueId + " у ключа " + i);
+            }
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            int at = nodesPos + node * NODE_BYTES;
+            int firstEdge = buffer.getInt(at);
+            int edges = buffer.getInt(at + Integer.BYTES);
+            int valueId = buffer.getInt(at + 2 * Integer.BYTES);
+            if (firstEdge < 0 || edges < 0 || (long) firstEdge + edges > edgeCount) {
+                throw corrupted("рёбра " + firstEdge + "+" + edges + " у узла " + node);
+            }
+            if (valueId < -1 || valueId >= valueCount) {
+                throw corrupted("номер перевода " + valueId + " у узла " + node);
+            }
+        }
+        for (int edge = 0; edge < edgeCount; edge++) {
+            int at = edgesPos + edge * EDGE_BYTES;
+            int wordId = buffer.getInt(at);
+            int child = buffer.getInt(at + Integer.BYTES);
+            if (wordId < 0 || wordId >= wordCount || child < 0 || child >= nodeCount) {
+                throw corrupted("слово " + wordId + " или узел " + child + " у ребра " + edge);
+            }
+        }
+    }
+
+    /**
+     * Проверяет таблицу смещений: начинается с нуля и не убывает
+     * (последний элемент — длина данных — уже проверен по размеру файла)
+     *
+     * @return длина самого длинного элемента
+     */
+    private int checkOffsets(int offsetsPos, int count, String what) throws InvalidFileFormatException {
+        int previous = buffer.getInt(offsetsPos);
+        if (previous != 0) {
+            throw corrupted("таблица смещений " + what + " начинается с " + previous);
+        }
+        int longest = 0;
+        for (int i = 1; i <= count; i++) {
+            int offset = buffer.getInt(offsetsPos + i * Integer.BYTES);
+            if (offset < previous) {
+                throw corrupted("смещения " + what + " убывают на позиции " + i);
+            }
+            longest = Math.max(longest, offset - previous);
+            previous = offset;
+        }
+        return longest;
+    }
+
+    private static InvalidFileFormatException corrupted(String detail) {
+        return new InvalidFileFormatException("Снимок словаря повреждён: " + detail);
+    }
+
+    /**
+     * Читает длину области данных — последний элемент таблицы смещений
+     */
+    private long dataLength(long offsetPos) throws InvalidFileFormatException {
+        int length = buffer.getInt(checkedPos(offsetPos, buffer.limit() - Integer.BYTES));
+        if (length < 0) {
+            throw new InvalidFileFormatException("Снимок словаря повреждён: отрицательная длина данных " + length);
+        }
+        return length;
+    }
+
+    private static int checkedPos(long pos, long size) throws InvalidFileFormatException {
+        if (pos < 0 || pos > size) {
+            throw new InvalidFileFormatException("Снимок словаря повреждён: смещение " + pos + " вне файла");
+        }
+        return (int) pos;
+    }
+
+    /**
+     * Проверяет по сигнатуре, является ли файл снимком словаря
+     *
+     * @param path путь к файлу
+     * @return true, если файл начинается с сигнатуры снимка
+     * @throws IOException при ошибках чтения
+     */
+    public static boolean isSnapshot(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(Integer.BYTES);
+            while (head.hasRemaining()) {
+                if (channel.read(head) < 0) return false;
+            }
+            return head.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Открывает снимок словаря через отображение в память
+     *
+     * @param path путь к файлу снимка
+     * @return открытый снимок
+     * @throws IOException                при ошибках чтения
+     * @throws InvalidFileFormatException если файл не является корректным снимком
+     */
+    public static DictionarySnapshot open(Path path) throws IOException, InvalidFileFormatException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new InvalidFileFormatException("Снимок словаря больше 2 ГБ не поддерживается");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new DictionarySnapshot(mapped);
+        }
+    }
+
+    /**
+     * Компилирует словарь в бинарный снимок
+     * Снимок пишется во временный файл рядом и затем атомарно переименовывается:
+     * процессы, которые уже отобразили прежний снимок в память, не видят частичной записи
+     *
+     * @param entries пары "нормализованный ключ -> перевод"
+     * @param out     путь к файлу снимка (заменяется)
+     * @throws IOException при ошибках записи или если снимок превышает 2 ГБ
+     */
+    public static void write(Map<String, String> entries, Path out) throws IOException {
+        // переводы без повторов и дерево фраз — те же, что строит загрузка текстового словаря;
+        // номер записи в compact совпадает с её порядковым номером в entries
+        CompactEntries compact = new CompactEntries(entries.size());
+        byte[][] encodedKeys = new byte[entries.size()][];
+        int count = 0;
+        for (Map.Entry<String, String> e : entries.entrySet()) {
+            compact.add(e.getKey(), e.getValue());
+            encodedKeys[count++] = e.getKey().getBytes(StandardCharsets.UTF_8);
+        }
+        Utf8Pool valuePool = compact.valuePool();
+        List<byte[]> values = new ArrayList<>(valuePool.size());
+        for (int id = 0; id < valuePool.size(); id++) {
+            values.add(valuePool.bytes(id));
+        }
+
+        // ключи сортируются побайтно в UTF-8 — так же их сравнивает поиск по снимку
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(encodedKeys[a], encodedKeys[b]));
+        List<byte[]> keys = new ArrayList<>(count);
+        int[] entryValues = new int[count];
+        for (int i = 0; i < count; i++) {
+            keys.add(encodedKeys[order[i]]);
+            entryValues[i] = compact.valueId(order[i]);
+        }
+
+        PhraseTrie trie = new PhraseTrie(valuePool);
+        for (int e = 0; e < count; e++) {
+            trie.put(compact.key(e), compact.valueId(e));
+        }
+
+        Map<String, Integer> wordIds = new HashMap<>();
+        List<String> words = new ArrayList<>();
+        int nodeCount = trie.nodeCount();
+        int[] nodes = new int[nodeCount * 3];
+        List<int[]> edges = new ArrayList<>();
+        for (int node = 0; node < nodeCount; node++) {
+            nodes[node * 3] = edges.size();
+            nodes[node * 3 + 1] = trie.edges(node).size();
+            nodes[node * 3 + 2] = trie.valueId(node);
+            for (Map.Entry<String, Integer> edge : new TreeMap<>(trie.edges(node)).entrySet()) {
+                int wordId = wordIds.computeIfAbsent(edge.getKey(), w -> {
+                    words.add(w);
+                    return words.size() - 1;
+                });
+                edges.add(new int[]{wordId, edge.getValue()});
+            }
+        }
+
+        long keyBytes = keys.stream().mapToLong(k -> k.length).sum();
+        long valueBytes = values.stream().mapToLong(v -> v.length).sum();
+        long wordChars = words.stream().mapToLong(String::length).sum();
+        long total = HEADER_BYTES
+                + (keys.size() * 2L + values.size() + words.size() + 3) * Integer.BYTES
+                + (long) nodeCount * NODE_BYTES + (long) edges.size() * EDGE_BYTES
+                + keyBytes + valueBytes + wordChars * Character.BYTES;
+        if (total > Integer.MAX_VALUE) {
+            throw new IOException("Снимок словаря превышает 2 ГБ: " + total + " байт");
+        }
+
+        Path target = out.toAbsolutePath();
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+            data.writeInt(keys.size());
+            data.writeInt(values.size());
+            data.writeInt(words.size());
+            data.writeInt(nodeCount);
+            data.writeInt(edges.size());
+            data.writeInt(trie.maxDepth());
+
+            writeOffsets(data, keys);
+            for (int v : entryValues) data.writeInt(v);
+            writeOffsets(data, values);
+            int offset = 0;
+            for (String w : words) {
+                data.writeInt(offset);
+                offset += w.length();
+            }
+            data.writeInt(offset);
+            for (int n : nodes) data.writeInt(n);
+            for (int[] edge : edges) {
+                data.writeInt(edge[0]);
+                data.writeInt(edge[1]);
+            }
+
+            for (byte[] k : keys) data.write(k);
+            for (byte[] v : values) data.write(v);
+            for (String w : words) data.writeChars(w);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeOffsets(DataOutputStream data, List<byte[]> items) throws IOException {
+        int offset = 0;
+        for (byte[] item : items) {
+            data.writeInt(offset);
+            offset += item.length;
+        }
+        data.writeInt(offset);
+    }
+
+    @Override
+    public long root() {
+        return 0;
+    }
+
+    @Override
+    public long next(long state, CharSequence text, int from, int to) {
+        int node = nodesPos + (int) state * NODE_BYTES;
+        int lo = buffer.getInt(node);
+        int hi = lo + buffer.getInt(node + Integer.BYTES) - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int edge = edgesPos + mid * EDGE_BYTES;
+            int cmp = compareWord(buffer.getInt(edge), text, from, to);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return buffer.getInt(edge + Integer.BYTES);
+            }
+        }
+        return NO_STATE;
+    }
+
+    @Override
+    public String translation(long state) {
+        int valueId = buffer.getInt(nodesPos + (int) state * NODE_BYTES + 2 * Integer.BYTES);
+        return valueId < 0 ? null : value(valueId);
+    }
+
+    @Override
+    public void appendTranslation(long state, StringBuilder out) {
+        int valueId = buffer.getInt(nodesPos + (int) state * NODE_BYTES + 2 * Integer.BYTES);
+        int from = buffer.getInt(valueOffsetsPos + valueId * Integer.BYTES);
+        int to = buffer.getInt(valueOffsetsPos + (valueId + 1) * Integer.BYTES);
+        Utf8Pool.appendDecoded(buffer, valueDataPos + from, valueDataPos + to, out);
+    }
+
+    @Override
+    public boolean hasTranslation(long state) {
+        return buffer.getInt(nodesPos + (int) state * NODE_BYTES + 2 * Integer.BYTES) >= 0;
+    }
+
+    @Override
+    public int maxDepth() {
+        return maxDepth;
+    }
+
+    @Override
+    public int maxWordLength() {
+        return maxWordLength;
+    }
+
+    /**
+     * Возвращает карту словаря поверх снимка (только чтение, порядок — побайтный порядок ключей)
+     */
+    public Map<String, String> entries() {
+        return entries;
+    }
+
+    /**
+     * Возвращает количество записей в снимке
+     */
+    public int size() {
+        return entryCount;
+    }
+
+    /**
+     * Сравнивает слово дерева с номером {@code wordId} с диапазоном текста в нижнем регистре
+     * так же, как String.compareTo сравнил бы их строки
+     */
+    private int compareWord(int wordId, CharSequence text, int from, int to) {
+        int start = buffer.getInt(wordOffsetsPos + wordId * Integer.BYTES);
+        int length = buffer.getInt(wordOffsetsPos + (wordId + 1) * Integer.BYTES) - start;
+        int base = wordDataPos + start * Character.BYTES;
+        int k = 0;
+        int i = from;
+        while (i < to) {
+            int cp = Character.codePointAt(text, i);
+            int lower = Character.toLowerCase(cp);
+            i += Character.charCount(cp);
+            if (Character.isBmpCodePoint(lower)) {
+                if (k == length) return -1;
+                int diff = buffer.getChar(base + k++ * Character.BYTES) - lower;
+                if (diff != 0) return diff;
+            } else {
+                char[] units = {Character.highSurrogate(lower), Character.lowSurrogate(lower)};
+                for (char unit : units) {
+                    if (k == length) return -1;
+                    int diff = buffer.getChar(base + k++ * Character.BYTES) - unit;
+                    if (diff != 0) return diff;
+                }
+            }
+        }
+        return k == length ? 0 : 1;
+    }
+
+    private String value(int valueId) {
+        return decode(valueDataPos, valueOffsetsPos, valueId);
+    }
+
+    private String key(int index) {
+        return decode(keyDataPos, keyOffsetsPos, index);
+    }
+
+    private String decode(int dataPos, int offsetsPos, int index) {
+        int start = buffer.getInt(offsetsPos + index * Integer.BYTES);
+        int end = buffer.getInt(offsetsPos + (index + 1) * Integer.BYTES);
+        byte[] bytes = new byte[end - start];
+        buffer.get(dataPos + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Двоичный поиск ключа среди отсортированных ключей снимка
+     *
+     * @return позиция ключа или -1
+     */
+    private int findKey(String key) {
+        byte[] needle = key.getBytes(StandardCharsets.UTF_8);
+        int lo = 0;
+        int hi = entryCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compareKey(mid, needle);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private int compareKey(int index, byte[] needle) {
+        int start = buffer.getInt(keyOffsetsPos + index * Integer.BYTES);
+        int length = buffer.getInt(keyOffsetsPos + (index + 1) * Integer.BYTES) - start;
+        int common = Math.min(length, needle.length);
+        int base = keyDataPos + start;
+        for (int i = 0; i < common; i++) {
+            int diff = Byte.toUnsignedInt(buffer.get(base + i)) - Byte.toUnsignedInt(needle[i]);
+            if (diff != 0) return diff;
+        }
+        return length - needle.length;
+    }
+
+    private int entryValue(int index) {
+        return buffer.getInt(entryValuesPos + index * Integer.BYTES);
+    }
+
+    /**
+     * Карта только для чтения поверх ключей и переводов снимка
+     */
+    private final class SnapshotEntries extends AbstractMap<String, String> {
+
+        @Override
+        public int size() {
+            return entryCount;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && findKey((String) key) >= 0;
+        }
+
+        @Override
+        public String get(Object key) {
+            if (!(key instanceof String)) return null;
+            int index = findKey((String) key);
+            return index < 0 ? null : value(entryValue(index));
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    return new Iterator<>() {
+                        private int index;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < entryCount;
+                        }
+
+                        @Override
+                        public Entry<String, String> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            int i = index++;
+                            return new SimpleImmutableEntry<>(key(i), value(entryValue(i)));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return entryCount;
+                }
+            };
+        }
+    }
+}
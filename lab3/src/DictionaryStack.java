@@ -0,0 +1,99 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * DictionaryStack — неизменяемый стек словарей: базовый словарь и слои поверх него
+ * Слой 0 — базовый (обычно большой) словарь, каждый следующий — более приоритетный слой
+ * (например, небольшой словарь предметной области). Ключ ищется во всех слоях; из совпадений
+ * выбирается самое длинное, а при равной длине — совпадение из более приоритетного слоя
+ *
+ * Замена одного слоя ({@link #withLayer(int, Dictionary)}) создаёт новый стек со ссылками
+ * на прежние объекты остальных слоёв: индексы других слоёв не перестраиваются и не копируются
+ */
+final class DictionaryStack {
+
+    private final Dictionary[] layers;
+    private final int maxDepth;
+    private final int maxWordLength;
+    private final int size;
+
+    /**
+     * @param layers словари от базового к самому приоритетному (не пусто)
+     */
+    DictionaryStack(List<Dictionary> layers) {
+        this(layers.toArray(new Dictionary[0]));
+    }
+
+    private DictionaryStack(Dictionary[] layers) {
+        if (layers.length == 0) {
+            throw new IllegalArgumentException("Стек словарей не может быть пустым");
+        }
+        this.layers = layers;
+        int depth = 0;
+        int wordLength = 0;
+        int entries = 0;
+        for (Dictionary layer : layers) {
+            depth = Math.max(depth, layer.getPhraseIndex().maxDepth());
+            wordLength = Math.max(wordLength, layer.getPhraseIndex().maxWordLength());
+            entries += layer.size();
+        }
+        this.maxDepth = depth;
+        this.maxWordLength = wordLength;
+        this.size = entries;
+    }
+
+    /**
+     * Возвращает новый стек, в котором слой {@code index} заменён на {@code replacement}
+     */
+    DictionaryStack withLayer(int index, Dictionary replacement) {
+        Dictionary[] copy = Arrays.copyOf(layers, layers.length);
+        copy[index] = replacement;
+        return new DictionaryStack(copy);
+    }
+
+    /**
+     * Возвращает количество слоёв
+     */
+    int layerCount() {
+        return layers.length;
+    }
+
+    /**
+     * Возвращает слой: 0 — базовый словарь, {@code layerCount() - 1} — самый приоритетный
+     */
+    Dictionary layer(int index) {
+        return layers[index];
+    }
+
+    /**
+     * Возвращает наибольшее количество слов в ключе среди всех слоёв
+     */
+    int maxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Возвращает длину самого длинного слова ключей среди всех слоёв
+     */
+    int maxWordLength() {
+        return maxWordLength;
+    }
+
+    /**
+     * Возвращает суммарное количество записей во всех слоях
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Возвращает суммарную длительность загрузки слоёв, нс
+     */
+    long loadNanos() {
+        long total = 0;
+        for (Dictionary layer : layers) {
+            total += layer.getLoadNanos();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,99 @@
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * DictionaryWatcher — фоновое наблюдение за файлом словаря
+ * Подписывается на изменения каталога файла и вызывает обработчик, когда меняется
+ * именно этот файл. Серия событий (запись файла частями) сводится к одному вызову
+ */
+final class DictionaryWatcher {
+
+    /**
+     * Пауза после первого события, за которую файл должен "успокоиться"
+     */
+    private static final long SETTLE_MILLIS = 200;
+
+    private final Path fileName;
+    private final Runnable onChange;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    /**
+     * Запускает наблюдение
+     *
+     * @param file     путь к файлу словаря
+     * @param onChange обработчик, вызываемый в потоке наблюдателя после изменения файла
+     *                 (его непроверяемые исключения выводятся в stderr, наблюдение продолжается)
+     * @throws IOException если не удалось подписаться на изменения каталога
+     */
+    DictionaryWatcher(Path file, Runnable onChange) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        this.fileName = absolute.getFileName();
+        this.onChange = onChange;
+        this.watchService = absolute.getFileSystem().newWatchService();
+        absolute.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        this.thread = new Thread(this::run, "dictionary-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                boolean changed = drain(key);
+                if (!changed) continue;
+
+                // ждём окончания записи и поглощаем события, пришедшие за это время
+                Thread.sleep(SETTLE_MILLIS);
+                WatchKey more;
+                while ((more = watchService.poll()) != null) {
+                    drain(more);
+                }
+                try {
+                    onChange.run();
+                } catch (RuntimeException e) {
+                    // ошибка одной перезагрузки не должна останавливать наблюдение
+                    System.err.println("Ошибка при обработке изменения словаря " + fileName + ": " + e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // наблюдение остановлено через close()
+        }
+    }
+
+    /**
+     * Разбирает события ключа и возвращает true, если среди них есть изменение нашего файла
+     */
+    private boolean drain(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * Останавливает наблюдение
+     */
+    void close() {
+        thread.interrupt();
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+            // сервис уже закрыт — игнорируем
+        }
+    }
+}
@@ -0,0 +1,103 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram — потокобезопасная гистограмма задержек в наносекундах
+ * Корзины логарифмические с линейным делением внутри степени двойки (как в HdrHistogram):
+ * каждая степень двойки делится на {@link #SUB_BUCKETS} равных частей, поэтому
+ * относительная погрешность перцентиля не превышает 1/SUB_BUCKETS (~6%)
+ * Запись — вычисление номера корзины и инкремент LongAdder, без блокировок и выделения памяти
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // значения меньше SUB_BUCKETS попадают в корзину "как есть", далее — по степеням двойки до 2^63
+    private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BITS) * SUB_BUCKETS;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Учитывает одно значение задержки
+     *
+     * @param nanos задержка в наносекундах (отрицательные значения считаются нулём)
+     */
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[bucket(value)].increment();
+        total.increment();
+        sum.add(value);
+    }
+
+    /**
+     * Возвращает количество учтённых значений
+     */
+    long count() {
+        return total.sum();
+    }
+
+    /**
+     * Возвращает среднее значение в наносекундах (0, если значений нет)
+     */
+    double mean() {
+        long n = total.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Возвращает перцентиль в наносекундах — верхнюю границу корзины, в которую он попал
+     * Счётчики читаются без общей блокировки, поэтому при одновременной записи
+     * результат соответствует одному из близких моментов времени
+     *
+     * @param quantile доля от 0 до 1 (например, 0.99)
+     * @return значение перцентиля или 0, если значений нет
+     */
+    long percentile(double quantile) {
+        long[] snapshot = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts[i].sum();
+            n += snapshot[i];
+        }
+        if (n == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return upperBound(i);
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    /**
+     * Сбрасывает все счётчики
+     */
+    void reset() {
+        for (LongAdder c : counts) c.reset();
+        total.reset();
+        sum.reset();
+    }
+
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (exponent - SUB_BITS) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = (bucket - SUB_BUCKETS) / SUB_BUCKETS + SUB_BITS;
+        int sub = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BITS);
+        return (1L << exponent) + (sub + 1) * width - 1;
+    }
+}
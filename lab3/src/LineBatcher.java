@@ -0,0 +1,116 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * LineBatcher — объединяет запросы перевода от многих соединений в пакеты
+ * Запросы складываются в общую очередь; поток-диспетчер забирает первый запрос и всё,
+ * что успело накопиться за ним (не больше {@link #MAX_BATCH}), и отдаёт пакет задачей в общий
+ * ForkJoinPool, не дожидаясь перевода, — пакеты разных соединений переводятся одновременно.
+ * Пакет от {@link Translator#MIN_BATCH_CHUNK} строк переводится параллельно через
+ * {@link Translator#translateBatch(List, ForkJoinPool)}, меньший — по строке в одной задаче.
+ * Искусственной задержки нет: пакет растёт сам, пока пул занят
+ */
+final class LineBatcher {
+
+    /**
+     * Наибольшее количество строк в одном пакете
+     */
+    static final int MAX_BATCH = 512;
+
+    private final Translator translator;
+    private final ForkJoinPool pool = ForkJoinPool.commonPool();
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile boolean closed;
+
+    LineBatcher(Translator translator) {
+        this.translator = translator;
+        this.thread = new Thread(this::run, "translation-batcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Ставит строку в очередь на перевод
+     *
+     * @return перевод, который будет готов после обработки пакета
+     */
+    CompletableFuture<String> submit(String line) {
+        Request request = new Request(line);
+        queue.add(request);
+        // диспетчер мог уже остановиться и не увидеть запрос — тогда снимаем его сами
+        if (closed && queue.remove(request)) {
+            request.result.completeExceptionally(stopped());
+        }
+        return request.result;
+    }
+
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                List<Request> batch = new ArrayList<>();
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH - 1);
+                pool.execute(() -> translate(batch));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // запросы, не попавшие в пакет до остановки, завершаются с ошибкой
+        Request rest;
+        while ((rest = queue.poll()) != null) {
+            rest.result.completeExceptionally(stopped());
+        }
+    }
+
+    private void translate(List<Request> batch) {
+        try {
+            if (batch.size() < Translator.MIN_BATCH_CHUNK) {
+                // на порции пакетного перевода такой пакет всё равно не делится
+                for (Request r : batch) {
+                    r.result.complete(translator.translate(r.line));
+                }
+                return;
+            }
+            List<String> lines = new ArrayList<>(batch.size());
+            for (Request r : batch) {
+                lines.add(r.line);
+            }
+            List<String> translated = translator.translateBatch(lines, pool);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(translated.get(i));
+            }
+        } catch (RuntimeException e) {
+            for (Request r : batch) {
+                // уже завершённые запросы пакета не меняются
+                r.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Останавливает диспетчер; ожидающие запросы завершаются с ошибкой,
+     * уже отданные в пул пакеты переводятся до конца
+     */
+    void close() {
+        closed = true;
+        thread.interrupt();
+    }
+
+    private static IllegalStateException stopped() {
+        return new IllegalStateException("Сервер перевода остановлен");
+    }
+
+    private static final class Request {
+        final String line;
+        final CompletableFuture<String> result = new CompletableFuture<>();
+
+        Request(String line) {
+            this.line = line;
+        }
+    }
+}
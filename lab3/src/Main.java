@@ -1,7 +1,14 @@
 import exceptions.FileReadException;
 import exceptions.InvalidFileFormatException;
 
+import javax.management.JMException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
 
 /*
     Пример содержимого файла dictionary.txt:
@@ -18,6 +25,26 @@ import java.util.Scanner;
 
     Ожидаемый вывод:
         Перевод: dog смотреть to the окно, dog ожидать!!
+
+    Вместо dictionary.txt можно передать бинарный снимок, собранный DictionaryCompiler:
+        java DictionaryCompiler dictionary.txt dictionary.bin
+        java Main dictionary.bin
+
+    Поверх базового словаря можно подключить слои (например, словарь предметной области),
+    перечислив файлы через разделитель путей (':' в Unix, ';' в Windows), базовый — первым.
+    Ключи слоя приоритетнее базовых, каждый файл перезагружается отдельно:
+        java Main dictionary.bin:medical.txt
+
+    Неинтерактивный режим (потоковый перевод файла в файл, UTF-8):
+        java Main dictionary.txt input.txt output.txt
+
+    Режим сервера (TCP на localhost, строка запроса -> строка перевода, UTF-8; порт по умолчанию 7070):
+        java Main dictionary.txt --server 7070
+    Нагрузку на сервер можно измерить клиентом TranslationLoadClient
+
+    Метрики переводчика доступны через JMX (lab3:type=Translator), а сводку можно
+    периодически выводить в System.err, указав период в секундах:
+        java -Dmetrics.dump=60 Main dictionary.txt
 */
 
 public final class Main {
@@ -29,7 +56,7 @@ public final class Main {
         Translator translator;
         try {
             System.out.println("Загружаем словарь из: " + dictPath);
-            translator = new Translator(dictPath);
+            translator = new Translator(Arrays.asList(dictPath.split(File.pathSeparator)));
         } catch (InvalidFileFormatException e) {
             System.err.println("Ошибка формата словаря: " + e.getMessage());
             return;
@@ -38,6 +65,32 @@ public final class Main {
             return;
         }
 
+        exposeMetrics(translator);
+
+        // непереведённые слова дописываются в файл по ходу работы, а не только при выходе
+        try {
+            translator.enableUnknownWordLog(Translator.UNKNOWN_WORDS_FILE);
+        } catch (IOException e) {
+            System.err.println("Журнал непереведённых слов недоступен: " + e.getMessage());
+        }
+
+        if (args.length >= 2 && args[1].equals("--server")) {
+            serve(translator, args.length >= 3 ? args[2] : null);
+            return;
+        }
+
+        if (args.length >= 3) {
+            translateFile(translator, Paths.get(args[1]), Paths.get(args[2]));
+            return;
+        }
+
+        // в интерактивном режиме подхватываем изменения словаря без перезапуска
+        try {
+            translator.startDictionaryWatch();
+        } catch (IOException e) {
+            System.err.println("Наблюдение за словарём недоступно: " + e.getMessage());
+        }
+
         Scanner scanner = new Scanner(System.in);
         System.out.println("Переводчик запущен. Введите текст для перевода (введите 'exit' или 'выход' для завершения):");
 
@@ -61,6 +114,78 @@ public final class Main {
             System.out.println("Перевод: " + translated);
         }
 
+        translator.stopDictionaryWatch();
         scanner.close();
     }
+
+    /**
+     * Режим сервера: переводит строки, приходящие по TCP, до ввода 'exit' в консоли
+     */
+    private static void serve(Translator translator, String portArg) {
+        int port;
+        try {
+            port = (portArg == null) ? TranslationServer.DEFAULT_PORT : Integer.parseInt(portArg);
+        } catch (NumberFormatException e) {
+            System.err.println("Неверный номер порта: " + portArg);
+            return;
+        }
+
+        TranslationServer server;
+        try {
+            server = new TranslationServer(translator, port);
+        } catch (IOException e) {
+            System.err.println("Не удалось запустить сервер: " + e.getMessage());
+            return;
+        }
+        try {
+            translator.startDictionaryWatch();
+        } catch (IOException e) {
+            System.err.println("Наблюдение за словарём недоступно: " + e.getMessage());
+        }
+        System.out.println("Сервер перевода запущен на порту " + server.getPort()
+                + ". Введите 'exit' или 'выход' для остановки");
+
+        Scanner scanner = new Scanner(System.in);
+        while (scanner.hasNextLine()) {
+            String trimmed = scanner.nextLine().trim();
+            if (trimmed.equalsIgnoreCase("exit") || trimmed.equalsIgnoreCase("выход")) break;
+        }
+        server.close();
+        translator.stopDictionaryWatch();
+        translator.saveUnknownWords();
+        System.out.println("Сервер остановлен");
+    }
+
+    /**
+     * Регистрирует метрики переводчика в JMX и, если задано свойство metrics.dump,
+     * запускает их периодический вывод
+     */
+    private static void exposeMetrics(Translator translator) {
+        try {
+            translator.getMetrics().registerMBean();
+        } catch (JMException e) {
+            System.err.println("Метрики недоступны через JMX: " + e.getMessage());
+        }
+        long dumpSeconds = Long.getLong("metrics.dump", 0L);
+        if (dumpSeconds > 0) {
+            translator.getMetrics().startPeriodicDump(dumpSeconds, TimeUnit.SECONDS, System.err);
+        }
+    }
+
+    /**
+     * Неинтерактивный режим: переводит файл целиком в потоковом режиме
+     * и сохраняет непереведённые слова
+     */
+    private static void translateFile(Translator translator, Path input, Path output) {
+        try {
+            System.out.println("Переводим файл " + input + " -> " + output);
+            translator.translate(input, output);
+            System.out.println("Перевод записан в: " + output);
+            System.out.println("Метрики: " + translator.getMetrics().dump());
+        } catch (IOException e) {
+            System.err.println("Ошибка при переводе файла: " + e.getMessage());
+            return;
+        }
+        translator.saveUnknownWords();
+    }
 }
@@ -0,0 +1,236 @@
+import exceptions.InvalidFileFormatException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * MappedDictionaryReader — читает файл словаря "фраза | перевод" через отображение в память
+ * Файл делится на сегменты, выровненные по границам строк; сегменты разбираются
+ * параллельно как UTF-8, а результаты сливаются в исходном порядке строк
+ * Номера строк в сообщениях об ошибках совпадают с последовательным чтением:
+ * строки разделяются '\n', завершающий '\r' отбрасывается
+ */
+final class MappedDictionaryReader {
+
+    /**
+     * Файлы меньше этого размера на сегмент не делятся — параллельность не окупается
+     */
+    private static final long MIN_SEGMENT_BYTES = 1L << 20;
+
+    /**
+     * Предельный размер одного отображаемого сегмента (MappedByteBuffer адресуется int)
+     */
+    private static final long MAX_SEGMENT_BYTES = 1L << 28;
+
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    private MappedDictionaryReader() {
+    }
+
+    /**
+     * Приёмник разобранных пар в порядке строк файла
+     */
+    interface EntrySink {
+        void accept(String normalizedKey, String translation);
+    }
+
+    /**
+     * Читает файл словаря и передаёт пары в {@code sink} в порядке строк файла
+     *
+     * @param path путь к файлу словаря
+     * @param sink приёмник пар (ключ уже нормализован)
+     * @return количество переданных пар
+     * @throws IOException                при ошибках чтения
+     * @throws InvalidFileFormatException при неверном формате строки (номер строки — как в файле)
+     */
+    static int read(Path path, EntrySink sink) throws IOException, InvalidFileFormatException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = segmentBounds(channel);
+            int segmentCount = bounds.length - 1;
+
+            Segment[] segments;
+            try {
+                segments = IntStream.range(0, segmentCount)
+                        .parallel()
+                        .mapToObj(k -> parseSegment(channel, bounds[k], bounds[k + 1]))
+                        .toArray(Segment[]::new);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            int lineOffset = 0;
+            int count = 0;
+            for (Segment segment : segments) {
+                if (segment.error != null) {
+                    throw new InvalidFileFormatException(segment.error.message(lineOffset + segment.error.localLine));
+                }
+                for (int i = 0; i < segment.keys.size(); i++) {
+                    sink.accept(segment.keys.get(i), segment.values.get(i));
+                }
+                count += segment.keys.size();
+                lineOffset += segment.lineCount;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Делит файл на сегменты: каждая граница сдвигается вперёд на начало следующей строки
+     *
+     * @return массив границ длины (количество сегментов + 1)
+     */
+    private static long[] segmentBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int parallelism = ForkJoinPool.commonPool().getParallelism();
+        long bySize = Math.max(1, size / MIN_SEGMENT_BYTES);
+        long byLimit = (size + MAX_SEGMENT_BYTES - 1) / MAX_SEGMENT_BYTES;
+        int wanted = (int) Math.max(byLimit, Math.min(bySize, parallelism * 4L));
+
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        for (int k = 1; k < wanted; k++) {
+            long nominal = size * k / wanted;
+            long previous = bounds.get(bounds.size() - 1);
+            if (nominal <= previous) continue;
+            long start = nextLineStart(channel, nominal, size);
+            if (start > previous && start < size) {
+                bounds.add(start);
+            }
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает позицию сразу после первого '\n', начиная с {@code position}, или конец файла
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long pos = position;
+        while (pos < size) {
+            buffer.clear();
+            int n = channel.read(buffer, pos);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                if (buffer.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    private static Segment parseSegment(FileChannel channel, long start, long end) {
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            return parse(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Разбирает строки одного сегмента. Разбор останавливается на первой ошибке формата
+     */
+    private static Segment parse(ByteBuffer buffer) {
+        Segment segment = new Segment();
+        byte[] lineBytes = new byte[256];
+        int limit = buffer.limit();
+        int pos = 0;
+
+        while (pos < limit) {
+            int lineEnd = pos;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int next = lineEnd + 1;
+            if (lineEnd > pos && buffer.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+
+            int length = lineEnd - pos;
+            if (length > lineBytes.length) {
+                lineBytes = new byte[Math.max(length, lineBytes.length * 2)];
+            }
+            buffer.get(pos, lineBytes, 0, length);
+            String line = new String(lineBytes, 0, length, StandardCharsets.UTF_8);
+            pos = next;
+            segment.lineCount++;
+
+            String raw = line.trim();
+            if (raw.isEmpty() || raw.startsWith("#")) {
+                continue;
+            }
+
+            int bar = raw.indexOf('|');
+            if (bar < 0) {
+                segment.error = new FormatError(FormatError.NO_SEPARATOR, segment.lineCount, line);
+                return segment;
+            }
+
+            String left = raw.substring(0, bar).trim();
+            String right = raw.substring(bar + 1).trim();
+
+            if (left.isEmpty() || right.isEmpty()) {
+                segment.error = new FormatError(FormatError.EMPTY_PART, segment.lineCount, line);
+                return segment;
+            }
+
+            segment.keys.add(Dictionary.normalizeKey(left));
+            segment.values.add(right);
+        }
+        return segment;
+    }
+
+    /**
+     * Результат разбора сегмента: пары в порядке строк, число строк и первая ошибка формата
+     */
+    private static final class Segment {
+        final List<String> keys = new ArrayList<>();
+        final List<String> values = new ArrayList<>();
+        int lineCount;
+        FormatError error;
+    }
+
+    /**
+     * Ошибка формата с номером строки внутри сегмента. Сообщение строится после того,
+     * как известно смещение сегмента в строках файла
+     */
+    private static final class FormatError {
+        static final int NO_SEPARATOR = 0;
+        static final int EMPTY_PART = 1;
+
+        final int kind;
+        final int localLine;
+        final String line;
+
+        FormatError(int kind, int localLine, String line) {
+            this.kind = kind;
+            this.localLine = localLine;
+            this.line = line;
+        }
+
+        String message(int lineNo) {
+            if (kind == NO_SEPARATOR) {
+                return "Неверный формат в строке " + lineNo + ": \"" + line + "\". Ожидается 'лево | право'";
+            }
+            return "Пустая часть слова или перевода в строке " + lineNo + ": \"" + line + "\"";
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Пословный индекс фраз словаря для поиска самого длинного совпадения
+ * Состояние индекса — позиция после прочитанной последовательности слов;
+ * поиск идёт от {@link #root()} по одному слову и прекращается, когда
+ * {@link #next(long, CharSequence, int, int)} возвращает {@link #NO_STATE}
+ */
+public interface PhraseIndex {
+
+    /**
+     * Признак того, что ни один ключ не продолжается прочитанной фразой
+     */
+    long NO_STATE = -1L;
+
+    /**
+     * Возвращает состояние для пустой фразы
+     */
+    long root();
+
+    /**
+     * Продолжает фразу одним словом — диапазоном {@code text[from, to)}.
+     * Слово сравнивается с ключами без учёта регистра (посимвольно, {@link Character#toLowerCase(int)}),
+     * поэтому вызывающему не нужно создавать строку для каждого слова
+     *
+     * @param state текущее состояние
+     * @param text  текст, содержащий слово
+     * @param from  начало слова
+     * @param to    конец слова (не включая)
+     * @return новое состояние или {@link #NO_STATE}, если ни один ключ так не продолжается
+     */
+    long next(long state, CharSequence text, int from, int to);
+
+    /**
+     * Возвращает перевод фразы, соответствующей состоянию
+     *
+     * @param state состояние, полученное из {@link #next(long, CharSequence, int, int)}
+     * @return перевод или null, если фраза не является ключом
+     */
+    String translation(long state);
+
+    /**
+     * Дописывает перевод фразы, соответствующей состоянию, в {@code out} без создания строки перевода.
+     * Состояние должно быть концом ключа ({@link #hasTranslation(long)})
+     */
+    void appendTranslation(long state, StringBuilder out);
+
+    /**
+     * Проверяет, является ли фраза, соответствующая состоянию, ключом словаря.
+     * В отличие от {@link #translation(long)}, не создаёт строку перевода
+     */
+    boolean hasTranslation(long state);
+
+    /**
+     * Возвращает максимальное количество слов в ключе
+     */
+    int maxDepth();
+
+    /**
+     * Возвращает длину самого длинного слова ключей в символах (UTF-16)
+     */
+    int maxWordLength();
+}
@@ -0,0 +1,289 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * PhraseTrie — пословное префиксное дерево ключей словаря
+ * Каждое ребро соответствует одному слову нормализованного ключа, поэтому поиск
+ * самого длинного совпадения проходит дерево один раз от стартовой позиции
+ * и останавливается, как только продолжения больше нет
+ * Узлы нумеруются подряд, корень имеет номер 0; номер узла служит состоянием индекса
+ *
+ * Слова и рёбра хранятся в таблицах с открытой адресацией: слово ищется по хешу
+ * диапазона входного текста с приведением регистра на лету, а ребро — по паре
+ * (узел, номер слова), так что переход по дереву не создаёт объектов
+ * Сами слова лежат подряд в одном массиве символов, без отдельного объекта String на слово
+ * Переводы хранятся в общем пуле UTF-8 ({@link Utf8Pool}, обычно — пул {@link CompactEntries}),
+ * а узел ссылается на перевод по номеру
+ */
+final class PhraseTrie implements PhraseIndex {
+
+    private static final int EMPTY = -1;
+
+    // различные слова ключей (в нижнем регистре, подряд в одном массиве символов) и их хеши
+    private char[] wordChars = new char[128];
+    private int wordCharsLength;
+    private int[] wordOffsets = new int[17];
+    private int[] wordHashes = new int[16];
+    private int wordCount;
+    private int[] wordSlots = emptySlots(32);
+
+    // рёбра: родитель, слово, потомок и следующее ребро того же родителя
+    private int[] edgeParent = new int[16];
+    private int[] edgeWord = new int[16];
+    private int[] edgeChild = new int[16];
+    private int[] edgeNext = new int[16];
+    private int edgeCount;
+    private int[] edgeSlots = emptySlots(32);
+
+    // узлы: первое исходящее ребро и номер перевода в пуле (EMPTY — нет)
+    private int[] firstEdge = new int[16];
+    private int[] nodeValues = new int[16];
+    private int nodeCount;
+
+    private int maxDepth;
+    private int maxWordLength;
+
+    private final Utf8Pool values;
+
+    /**
+     * @param values пул переводов, на номера в котором ссылаются ключи
+     */
+    PhraseTrie(Utf8Pool values) {
+        this.values = values;
+        newNode();
+    }
+
+    /**
+     * Добавляет ключ в дерево. Ключ должен быть уже нормализован
+     * (слова разделены одним пробелом, нижний регистр)
+     *
+     * @param normalizedKey нормализованный ключ словаря
+     * @param valueId       номер перевода ключа в пуле переводов
+     */
+    void put(String normalizedKey, int valueId) {
+        int node = 0;
+        int depth = 0;
+        int start = 0;
+        while (start <= normalizedKey.length()) {
+            int end = normalizedKey.indexOf(' ', start);
+            if (end < 0) end = normalizedKey.length();
+            int word = internWord(normalizedKey, start, end);
+            maxWordLength = Math.max(maxWordLength, end - start);
+            int edge = findEdge(node, word);
+            node = edge == EMPTY ? addEdge(node, word) : edgeChild[edge];
+            depth++;
+            start = end + 1;
+        }
+        nodeValues[node] = valueId;
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    @Override
+    public long root() {
+        return 0;
+    }
+
+    @Override
+    public long next(long state, CharSequence text, int from, int to) {
+        int word = findWord(text, from, to, Tokenizer.foldedHash(text, from, to));
+        if (word == EMPTY) return NO_STATE;
+        int edge = findEdge((int) state, word);
+        return edge == EMPTY ? NO_STATE : edgeChild[edge];
+    }
+
+    @Override
+    public String translation(long state) {
+        int valueId = nodeValues[(int) state];
+        return valueId == EMPTY ? null : values.get(valueId);
+    }
+
+    @Override
+    public void appendTranslation(long state, StringBuilder out) {
+        values.appendTo(nodeValues[(int) state], out);
+    }
+
+    @Override
+    public boolean hasTranslation(long state) {
+        return nodeValues[(int) state] != EMPTY;
+    }
+
+    @Override
+    public int maxDepth() {
+        return maxDepth;
+    }
+
+    @Override
+    public int maxWordLength() {
+        return maxWordLength;
+    }
+
+    /**
+     * Освобождает неиспользуемый запас массивов после построения дерева
+     * (после этого дерево больше не пополняется)
+     */
+    void trim() {
+        wordChars = Arrays.copyOf(wordChars, wordCharsLength);
+        wordOffsets = Arrays.copyOf(wordOffsets, wordCount + 1);
+        wordHashes = Arrays.copyOf(wordHashes, wordCount);
+        edgeParent = Arrays.copyOf(edgeParent, edgeCount);
+        edgeWord = Arrays.copyOf(edgeWord, edgeCount);
+        edgeChild = Arrays.copyOf(edgeChild, edgeCount);
+        edgeNext = Arrays.copyOf(edgeNext, edgeCount);
+        firstEdge = Arrays.copyOf(firstEdge, nodeCount);
+        nodeValues = Arrays.copyOf(nodeValues, nodeCount);
+    }
+
+    /**
+     * Возвращает количество узлов дерева
+     */
+    int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Возвращает номер перевода узла в пуле переводов (-1, если узел не является концом ключа)
+     */
+    int valueId(int node) {
+        return nodeValues[node];
+    }
+
+    /**
+     * Возвращает рёбра узла: слово -> номер дочернего узла
+     */
+    Map<String, Integer> edges(int node) {
+        Map<String, Integer> result = new HashMap<>();
+        for (int e = firstEdge[node]; e != EMPTY; e = edgeNext[e]) {
+            int word = edgeWord[e];
+            result.put(new String(wordChars, wordOffsets[word], wordOffsets[word + 1] - wordOffsets[word]),
+                    edgeChild[e]);
+        }
+        return result;
+    }
+
+    private int newNode() {
+        if (nodeCount == firstEdge.length) {
+            firstEdge = Arrays.copyOf(firstEdge, nodeCount * 2);
+            nodeValues = Arrays.copyOf(nodeValues, nodeCount * 2);
+        }
+        firstEdge[nodeCount] = EMPTY;
+        nodeValues[nodeCount] = EMPTY;
+        return nodeCount++;
+    }
+
+    // -- -- слова -- --
+
+    private int findWord(CharSequence text, int from, int to, int hash) {
+        int mask = wordSlots.length - 1;
+        for (int slot = mix(hash) & mask; wordSlots[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int id = wordSlots[slot];
+            if (wordHashes[id] == hash && Tokenizer.foldedEquals(text, from, to,
+                    wordChars, wordOffsets[id], wordOffsets[id + 1] - wordOffsets[id])) {
+                return id;
+            }
+        }
+        return EMPTY;
+    }
+
+    private int internWord(String key, int from, int to) {
+        int hash = Tokenizer.foldedHash(key, from, to);
+        int id = findWord(key, from, to, hash);
+        if (id != EMPTY) return id;
+
+        String folded = Tokenizer.fold(key, from, to);
+        if (wordCount == wordHashes.length) {
+            wordHashes = Arrays.copyOf(wordHashes, wordCount * 2);
+            wordOffsets = Arrays.copyOf(wordOffsets, wordCount * 2 + 1);
+        }
+        if (wordCharsLength + folded.length() > wordChars.length) {
+            wordChars = Arrays.copyOf(wordChars, Math.max(wordChars.length * 2, wordCharsLength + folded.length()));
+        }
+        folded.getChars(0, folded.length(), wordChars, wordCharsLength);
+        wordCharsLength += folded.length();
+        id = wordCount++;
+        wordOffsets[wordCount] = wordCharsLength;
+        wordHashes[id] = hash;
+
+        if (wordCount * 2 > wordSlots.length) {
+            wordSlots = emptySlots(wordSlots.length * 2);
+            for (int i = 0; i < wordCount; i++) {
+                placeWord(i);
+            }
+        } else {
+            placeWord(id);
+        }
+        return id;
+    }
+
+    private void placeWord(int id) {
+        int mask = wordSlots.length - 1;
+        int slot = mix(wordHashes[id]) & mask;
+        while (wordSlots[slot] != EMPTY) slot = (slot + 1) & mask;
+        wordSlots[slot] = id;
+    }
+
+    // -- -- рёбра -- --
+
+    private int findEdge(int node, int word) {
+        int mask = edgeSlots.length - 1;
+        for (int slot = edgeHash(node, word) & mask; edgeSlots[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int e = edgeSlots[slot];
+            if (edgeParent[e] == node && edgeWord[e] == word) {
+                return e;
+            }
+        }
+        return EMPTY;
+    }
+
+    private int addEdge(int node, int word) {
+        int child = newNode();
+        if (edgeCount == edgeParent.length) {
+            int capacity = edgeCount * 2;
+            edgeParent = Arrays.copyOf(edgeParent, capacity);
+            edgeWord = Arrays.copyOf(edgeWord, capacity);
+            edgeChild = Arrays.copyOf(edgeChild, capacity);
+            edgeNext = Arrays.copyOf(edgeNext, capacity);
+        }
+        int e = edgeCount++;
+        edgeParent[e] = node;
+        edgeWord[e] = word;
+        edgeChild[e] = child;
+        edgeNext[e] = firstEdge[node];
+        firstEdge[node] = e;
+
+        if (edgeCount * 2 > edgeSlots.length) {
+            edgeSlots = emptySlots(edgeSlots.length * 2);
+            for (int i = 0; i < edgeCount; i++) {
+                placeEdge(i);
+            }
+        } else {
+            placeEdge(e);
+        }
+        return child;
+    }
+
+    private void placeEdge(int e) {
+        int mask = edgeSlots.length - 1;
+        int slot = edgeHash(edgeParent[e], edgeWord[e]) & mask;
+        while (edgeSlots[slot] != EMPTY) slot = (slot + 1) & mask;
+        edgeSlots[slot] = e;
+    }
+
+    private static int edgeHash(int node, int word) {
+        return mix(node * 0x9E3779B9 + word);
+    }
+
+    /**
+     * Перемешивает биты хеша, чтобы близкие значения не занимали соседние слоты
+     */
+    private static int mix(int h) {
+        h *= 0x85EBCA6B;
+        return h ^ (h >>> 16);
+    }
+
+    private static int[] emptySlots(int size) {
+        int[] slots = new int[size];
+        Arrays.fill(slots, EMPTY);
+        return slots;
+    }
+}
@@ -0,0 +1,382 @@
+import java.nio.CharBuffer;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SuggestionIndex — индекс похожих слов ("возможно, имелось в виду") для однословных ключей словаря
+ * Устроен по схеме SymSpell: для каждого ключа заранее перечисляются варианты его префикса
+ * ({@link #PREFIX_LENGTH} символов) с удалением не более {@link #MAX_DISTANCE} символов,
+ * и для каждого варианта хранится список слов, у которых он есть. Для запроса перечисляются
+ * такие же варианты, по ним находятся кандидаты, и только для кандидатов считается расстояние.
+ * Строки вариантов не создаются — вариант представлен хэшем, а случайные совпадения хэшей
+ * отсеиваются проверкой расстояния
+ *
+ * Списки слов лежат подряд в одном массиве номеров (по корзине на вариант), корзину
+ * находит таблица с открытой адресацией — около 4 байт на пару "вариант -> слово".
+ * Индекс строится в два прохода: сначала считается размер каждой корзины, затем корзины заполняются
+ *
+ * Расстояние — Дамерау-Левенштейна в варианте "оптимального выравнивания" (перестановка
+ * соседних символов стоит 1)
+ */
+final class SuggestionIndex {
+
+    /**
+     * Наибольшее расстояние до предлагаемого слова
+     */
+    static final int MAX_DISTANCE = 2;
+
+    /**
+     * Длина префикса, по которому строятся варианты: ограничивает их количество (не больше 29
+     * на слово) независимо от длины слова
+     */
+    static final int PREFIX_LENGTH = 7;
+
+    /**
+     * Порядок "ближайшие первыми", при равенстве — по алфавиту
+     */
+    static final Comparator<Map.Entry<String, Integer>> BY_DISTANCE =
+            Map.Entry.<String, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey());
+
+    private static final int EMPTY = -1;
+
+    private final char[] chars;
+    private final int[] offsets;
+    private final int count;
+
+    // таблица "хэш варианта -> номер корзины"
+    private int[] slotHashes;
+    private int[] slotBuckets;
+    private int bucketCount;
+
+    // слова корзины b — wordIds[bucketStarts[b], bucketStarts[b + 1])
+    private int[] bucketStarts;
+    private int[] wordIds;
+
+    private SuggestionIndex(char[] chars, int[] offsets, int count) {
+        this.chars = chars;
+        this.offsets = offsets;
+        this.count = count;
+    }
+
+    /**
+     * Строит индекс по ключам словаря; фразы (ключи с пробелами) пропускаются
+     *
+     * @param keys нормализованные ключи словаря
+     */
+    static SuggestionIndex build(Iterable<String> keys) {
+        char[] chars = new char[1024];
+        int length = 0;
+        int[] offsets = new int[257];
+        int count = 0;
+        for (String key : keys) {
+            if (key.isEmpty() || key.indexOf(' ') >= 0) continue;
+
+            if (length + key.length() > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + key.length()));
+            }
+            key.getChars(0, key.length(), chars, length);
+            length += key.length();
+            if (count + 1 == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[++count] = length;
+        }
+
+        SuggestionIndex index = new SuggestionIndex(Arrays.copyOf(chars, length), Arrays.copyOf(offsets, count + 1), count);
+        index.buildBuckets();
+        return index;
+    }
+
+    private void buildBuckets() {
+        slotHashes = new int[Integer.highestOneBit(Math.max(16, count) * 2 - 1) << 1];
+        slotBuckets = emptySlots(slotHashes.length);
+        int[] sizes = new int[Math.max(16, count)];
+        int[] hashes = new int[variantCount(PREFIX_LENGTH)];
+
+        // проход 1: корзины и их размеры
+        for (int id = 0; id < count; id++) {
+            int variants = deleteHashes(chars, offsets[id], offsets[id + 1], hashes);
+            for (int v = 0; v < variants; v++) {
+                int bucket = bucketOf(hashes[v]);
+                if (bucket == EMPTY) {
+                    bucket = addBucket(hashes[v]);
+                    if (bucket == sizes.length) sizes = Arrays.copyOf(sizes, bucket * 2);
+                }
+                sizes[bucket]++;
+            }
+        }
+
+        bucketStarts = new int[bucketCount + 1];
+        for (int b = 0; b < bucketCount; b++) {
+            bucketStarts[b + 1] = bucketStarts[b] + sizes[b];
+        }
+
+        // проход 2: раскладываем номера слов; внутри корзины они идут по возрастанию
+        int[] cursors = sizes;
+        System.arraycopy(bucketStarts, 0, cursors, 0, bucketCount);
+        wordIds = new int[bucketStarts[bucketCount]];
+        for (int id = 0; id < count; id++) {
+            int variants = deleteHashes(chars, offsets[id], offsets[id + 1], hashes);
+            for (int v = 0; v < variants; v++) {
+                wordIds[cursors[bucketOf(hashes[v])]++] = id;
+            }
+        }
+    }
+
+    /**
+     * Возвращает количество слов в индексе
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * Ищет до {@code k} ближайших слов на расстоянии не больше {@link #MAX_DISTANCE}
+     * Варианты запроса перебираются по возрастанию числа удалённых символов: слово на расстоянии d
+     * находится вариантом не больше чем с d удалениями, поэтому, когда k слов на расстоянии
+     * не больше d уже найдено, остальные варианты можно не смотреть
+     *
+     * @param word слово в нижнем регистре
+     * @return пары "слово -> расстояние", ближайшие первыми (при равенстве — по алфавиту)
+     */
+    List<Map.Entry<String, Integer>> suggest(String word, int k) {
+        if (k <= 0 || word.isEmpty() || count == 0) return new ArrayList<>();
+
+        Search search = new Search(word);
+        int p = Math.min(word.length(), PREFIX_LENGTH);
+        search.visit(hashWithout(word, p, -1, -1));
+        if (search.found(0) < k) {
+            for (int i = 0; i < p; i++) {
+                search.visit(hashWithout(word, p, i, -1));
+            }
+            if (search.found(1) < k) {
+                for (int i = 0; i < p; i++) {
+                    for (int j = i + 1; j < p; j++) {
+                        search.visit(hashWithout(word, p, i, j));
+                    }
+                }
+            }
+        }
+
+        List<Map.Entry<String, Integer>> result = search.result;
+        result.sort(BY_DISTANCE);
+        return result.size() > k ? new ArrayList<>(result.subList(0, k)) : result;
+    }
+
+    private int bucketOf(int hash) {
+        int mask = slotHashes.length - 1;
+        for (int slot = hash & mask; slotBuckets[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (slotHashes[slot] == hash) return slotBuckets[slot];
+        }
+        return EMPTY;
+    }
+
+    private int addBucket(int hash) {
+        if ((bucketCount + 1) * 2 > slotHashes.length) {
+            int[] oldHashes = slotHashes;
+            int[] oldBuckets = slotBuckets;
+            slotHashes = new int[oldHashes.length * 2];
+            slotBuckets = emptySlots(slotHashes.length);
+            for (int slot = 0; slot < oldHashes.length; slot++) {
+                if (oldBuckets[slot] != EMPTY) place(oldHashes[slot], oldBuckets[slot]);
+            }
+        }
+        place(hash, bucketCount);
+        return bucketCount++;
+    }
+
+    private void place(int hash, int bucket) {
+        int mask = slotHashes.length - 1;
+        int slot = hash & mask;
+        while (slotBuckets[slot] != EMPTY) slot = (slot + 1) & mask;
+        slotHashes[slot] = hash;
+        slotBuckets[slot] = bucket;
+    }
+
+    private static int[] emptySlots(int size) {
+        int[] slots = new int[size];
+        Arrays.fill(slots, EMPTY);
+        return slots;
+    }
+
+    private static int variantCount(int length) {
+        return 1 + length + length * (length - 1) / 2;
+    }
+
+    /**
+     * Записывает в {@code out} хэши вариантов префикса слова {@code chars[from, to)}
+     * без 0, 1 и 2 символов (без повторов)
+     *
+     * @return количество вариантов
+     */
+    private static int deleteHashes(char[] chars, int from, int to, int[] out) {
+        CharSequence word = CharBuffer.wrap(chars, from, to - from);
+        int p = Math.min(to - from, PREFIX_LENGTH);
+        int n = 0;
+        out[n++] = hashWithout(word, p, -1, -1);
+        for (int i = 0; i < p; i++) {
+            out[n++] = hashWithout(word, p, i, -1);
+            for (int j = i + 1; j < p; j++) {
+                out[n++] = hashWithout(word, p, i, j);
+            }
+        }
+        // одинаковые варианты (например, удаление любой из двух одинаковых букв) храним один раз
+        Arrays.sort(out, 0, n);
+        int unique = 0;
+        for (int v = 0; v < n; v++) {
+            if (unique == 0 || out[unique - 1] != out[v]) out[unique++] = out[v];
+        }
+        return unique;
+    }
+
+    /**
+     * Хэш первых {@code length} символов слова без символов с позициями skip1 и skip2 (-1 — не пропускать)
+     */
+    private static int hashWithout(CharSequence word, int length, int skip1, int skip2) {
+        int h = 0;
+        int kept = 0;
+        for (int i = 0; i < length; i++) {
+            if (i == skip1 || i == skip2) continue;
+            h = 31 * h + word.charAt(i);
+            kept++;
+        }
+        // длина варианта входит в хэш, чтобы короткие варианты не сталкивались с длинными
+        h = (h ^ kept) * 0x9E3779B1;
+        return h ^ (h >>> 15);
+    }
+    /**
+     * Расстояние между {@code a} и {@code b[from, to)}; если оно больше {@link #MAX_DISTANCE},
+     * возвращается {@code MAX_DISTANCE + 1}. Строки матрицы передаются снаружи (длина a + 1)
+     * Общие начало и конец строк отбрасываются, а в матрице считается только полоса
+     * |i - j| <= MAX_DISTANCE: клетки вне её всё равно больше порога
+     */
+    private static int distance(String a, char[] b, int from, int to,
+                                int[] row, int[] previous, int[] beforePrevious) {
+        int aFrom = 0;
+        int aTo = a.length();
+        if (Math.abs(aTo - (to - from)) > MAX_DISTANCE) return MAX_DISTANCE + 1;
+        while (aFrom < aTo && from < to && a.charAt(aFrom) == b[from]) {
+            aFrom++;
+            from++;
+        }
+        while (aFrom < aTo && from < to && a.charAt(aTo - 1) == b[to - 1]) {
+            aTo--;
+            to--;
+        }
+        int n = aTo - aFrom;
+        int m = to - from;
+        if (n == 0 || m == 0) return Math.min(n + m, MAX_DISTANCE + 1);
+
+        int far = MAX_DISTANCE + 1;
+        for (int i = 0; i <= n; i++) previous[i] = Math.min(i, far);
+        for (int j = 1; j <= m; j++) {
+            char bj = b[from + j - 1];
+            int lo = Math.max(1, j - MAX_DISTANCE);
+            int hi = Math.min(n, j + MAX_DISTANCE);
+            row[lo - 1] = lo == 1 ? Math.min(j, far) : far;
+            int rowMin = far;
+            for (int i = lo; i <= hi; i++) {
+                char ai = a.charAt(aFrom + i - 1);
+                int cost = ai == bj ? 0 : 1;
+                int value = Math.min(Math.min(row[i - 1] + 1, previous[i] + 1), previous[i - 1] + cost);
+                if (i > 1 && j > 1 && ai == b[from + j - 2] && a.charAt(aFrom + i - 2) == bj) {
+                    value = Math.min(value, beforePrevious[i - 2] + 1);
+                }
+                row[i] = Math.min(value, far);
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin >= far) return far;
+            // клетка справа от полосы для следующей строки
+            if (hi < n) row[hi + 1] = far;
+
+            int[] oldest = beforePrevious;
+            beforePrevious = previous;
+            previous = row;
+            row = oldest;
+        }
+        return previous[n];
+    }
+
+    /**
+     * Состояние одного запроса: проверенные кандидаты, найденные слова и строки матрицы расстояний
+     */
+    private final class Search {
+        final String word;
+        final List<Map.Entry<String, Integer>> result = new ArrayList<>();
+        final IdSet seen = new IdSet();
+        final int[] byDistance = new int[MAX_DISTANCE + 1];
+        final int[] row;
+        final int[] previous;
+        final int[] beforePrevious;
+
+        Search(String word) {
+            this.word = word;
+            this.row = new int[word.length() + 1];
+            this.previous = new int[word.length() + 1];
+            this.beforePrevious = new int[word.length() + 1];
+        }
+
+        /**
+         * Проверяет слова корзины варианта с хэшем {@code hash}
+         */
+        void visit(int hash) {
+            int bucket = bucketOf(hash);
+            if (bucket == EMPTY) return;
+            for (int w = bucketStarts[bucket]; w < bucketStarts[bucket + 1]; w++) {
+                int id = wordIds[w];
+                int from = offsets[id];
+                int to = offsets[id + 1];
+                if (Math.abs(to - from - word.length()) > MAX_DISTANCE || !seen.add(id)) continue;
+
+                int distance = distance(word, chars, from, to, row, previous, beforePrevious);
+                if (distance <= MAX_DISTANCE) {
+                    byDistance[distance]++;
+                    result.add(new AbstractMap.SimpleImmutableEntry<>(new String(chars, from, to - from), distance));
+                }
+            }
+        }
+
+        /**
+         * Количество найденных слов на расстоянии не больше {@code distance}
+         */
+        int found(int distance) {
+            int total = 0;
+            for (int d = 0; d <= distance; d++) total += byDistance[d];
+            return total;
+        }
+    }
+
+    /**
+     * Множество номеров слов, уже проверенных в текущем запросе (открытая адресация)
+     */
+    private static final class IdSet {
+        private int[] slots = emptySlots(64);
+        private int size;
+
+        boolean add(int id) {
+            int mask = slots.length - 1;
+            int slot = (id * 0x9E3779B1) >>> 16 & mask;
+            while (slots[slot] != EMPTY) {
+                if (slots[slot] == id) return false;
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id;
+            if (++size * 2 > slots.length) {
+                int[] old = slots;
+                slots = emptySlots(old.length * 2);
+                mask = slots.length - 1;
+                for (int value : old) {
+                    if (value == EMPTY) continue;
+                    int s = (value * 0x9E3779B1) >>> 16 & mask;
+                    while (slots[s] != EMPTY) s = (s + 1) & mask;
+                    slots[s] = value;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+import java.util.Arrays;
+
+/**
+ * TokenRanges — токены текста в виде диапазонов индексов
+ * Для каждого токена хранятся его границы [start, end) и границы очищенной части
+ * [cleanStart, cleanEnd) — без ведущих и концевых символов, не являющихся буквами и цифрами
+ * У токена только из пунктуации очищенная часть пуста и начинается в start,
+ * поэтому [cleanEnd, end) — это всегда его концевая пунктуация
+ * Массивы переиспользуются между строками, поэтому разбор не создаёт объектов
+ */
+final class TokenRanges {
+
+    private int[] start = new int[16];
+    private int[] end = new int[16];
+    private int[] cleanStart = new int[16];
+    private int[] cleanEnd = new int[16];
+    private int count;
+
+    /**
+     * Добавляет токен [from, to) текста и вычисляет его очищенную часть
+     */
+    void add(CharSequence text, int from, int to) {
+        if (count == start.length) {
+            int capacity = count * 2;
+            start = Arrays.copyOf(start, capacity);
+            end = Arrays.copyOf(end, capacity);
+            cleanStart = Arrays.copyOf(cleanStart, capacity);
+            cleanEnd = Arrays.copyOf(cleanEnd, capacity);
+        }
+
+        int cs = from;
+        while (cs < to) {
+            int cp = Character.codePointAt(text, cs);
+            if (Tokenizer.isWordChar(cp)) break;
+            cs += Character.charCount(cp);
+        }
+        int ce = to;
+        while (ce > cs) {
+            int cp = Character.codePointBefore(text, ce);
+            if (Tokenizer.isWordChar(cp)) break;
+            ce -= Character.charCount(cp);
+        }
+        if (cs == ce) {
+            cs = from;
+            ce = from;
+        }
+
+        start[count] = from;
+        end[count] = to;
+        cleanStart[count] = cs;
+        cleanEnd[count] = ce;
+        count++;
+    }
+
+    /**
+     * Удаляет первые {@code n} токенов и сдвигает оставшиеся диапазоны на {@code shift} влево
+     * (текст, на который указывают диапазоны, укоротился с начала)
+     */
+    void removeFirst(int n, int shift) {
+        int rest = count - n;
+        for (int i = 0; i < rest; i++) {
+            start[i] = start[i + n] - shift;
+            end[i] = end[i + n] - shift;
+            cleanStart[i] = cleanStart[i + n] - shift;
+            cleanEnd[i] = cleanEnd[i + n] - shift;
+        }
+        count = rest;
+    }
+
+    void clear() {
+        count = 0;
+    }
+
+    int count() {
+        return count;
+    }
+
+    int start(int i) {
+        return start[i];
+    }
+
+    int end(int i) {
+        return end[i];
+    }
+
+    int cleanStart(int i) {
+        return cleanStart[i];
+    }
+
+    int cleanEnd(int i) {
+        return cleanEnd[i];
+    }
+
+    /**
+     * Возвращает true, если у токена есть хотя бы одна буква или цифра
+     */
+    boolean isWord(int i) {
+        return cleanStart[i] < cleanEnd[i];
+    }
+}
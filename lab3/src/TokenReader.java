@@ -0,0 +1,139 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * TokenReader — читает текст из Reader по токенам через буфер фиксированного размера
+ * Символы токена и разделителя после него дописываются в окно вызывающего без создания строк,
+ * а границы токена — в {@link TokenRanges}; так исходные пробелы и переводы строк
+ * можно восстановить при записи
+ * Разделителями считаются те же символы, что и у регулярного выражения \s
+ *
+ * Токен или разделитель длиннее {@code maxRun} символов в окно целиком не попадает: дописывается
+ * только его начало, а остаток вызывающий переносит в вывод через {@link #transferRest(Writer)}
+ */
+final class TokenReader {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final int maxRun;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean eof;
+    // последний токен или разделитель после него обрезан по maxRun
+    private boolean truncated;
+    private boolean truncatedToken;
+
+    /**
+     * @param reader источник текста
+     * @param maxRun наибольшее количество символов токена или разделителя, дописываемых в окно
+     */
+    TokenReader(Reader reader, int maxRun) {
+        this.reader = reader;
+        this.maxRun = maxRun;
+    }
+
+    /**
+     * Переносит в {@code out} разделители, идущие с текущей позиции (в начале входа)
+     */
+    void transferSeparator(Writer out) throws IOException {
+        copyWhile(true, out);
+    }
+
+    /**
+     * Читает следующий токен и разделитель после него: символы дописываются в {@code out},
+     * а границы токена (индексы в {@code out}) — в {@code tokens}.
+     * Если токен или разделитель обрезан, следующий токен читается только после {@link #transferRest(Writer)}
+     *
+     * @return false, если вход закончился и токена нет
+     */
+    boolean readToken(StringBuilder out, TokenRanges tokens) throws IOException {
+        int start = out.length();
+        boolean complete = readWhile(false, out);
+        int end = out.length();
+        if (end == start) {
+            return false;
+        }
+        tokens.add(out, start, end);
+        truncatedToken = !complete;
+        truncated = !complete || !readWhile(true, out);
+        return true;
+    }
+
+    /**
+     * Возвращает true, если последний прочитанный токен или разделитель после него обрезан
+     */
+    boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Переносит в {@code out} остаток обрезанного токена и весь разделитель после него
+     * (или остаток обрезанного разделителя), не накапливая их в памяти
+     */
+    void transferRest(Writer out) throws IOException {
+        if (!truncated) return;
+        truncated = false;
+        if (truncatedToken) {
+            copyWhile(false, out);
+        }
+        copyWhile(true, out);
+    }
+
+    /**
+     * Дописывает в {@code out} символы одного вида, но не больше {@code maxRun}
+     *
+     * @return false, если фрагмент обрезан
+     */
+    private boolean readWhile(boolean whitespace, StringBuilder out) throws IOException {
+        int room = maxRun;
+        while (fill()) {
+            int start = position;
+            int stop = limit - position > room ? position + room : limit;
+            while (position < stop && Tokenizer.isSeparator(buffer[position]) == whitespace) {
+                position++;
+            }
+            out.append(buffer, start, position - start);
+            room -= position - start;
+            if (position < stop) {
+                return true;
+            }
+            if (room == 0) {
+                // фрагмент обрезан, только если за пределом он продолжается
+                return !fill() || Tokenizer.isSeparator(buffer[position]) != whitespace;
+            }
+        }
+        return true;
+    }
+
+    private void copyWhile(boolean whitespace, Writer out) throws IOException {
+        while (fill()) {
+            int start = position;
+            while (position < limit && Tokenizer.isSeparator(buffer[position]) == whitespace) {
+                position++;
+            }
+            out.write(buffer, start, position - start);
+            if (position < limit) {
+                break;
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        if (position < limit) return true;
+        if (eof) return false;
+        int n = reader.read(buffer, 0, buffer.length);
+        while (n == 0) {
+            n = reader.read(buffer, 0, buffer.length);
+        }
+        if (n < 0) {
+            eof = true;
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * Tokenizer — разбор текста на токены без регулярных выражений и промежуточных строк
+ * Токены возвращаются как диапазоны индексов ({@link TokenRanges}); очистка от пунктуации
+ * и приведение к нижнему регистру выполняются на лету по кодовым точкам
+ *
+ * Разбор совпадает с прежними регулярными выражениями:
+ *  - разделители — символы \s: пробел, \t, \n, \u000B, \f, \r
+ *  - "словесные" символы — \p{L} и \p{N}: у токена отбрасываются ведущие и концевые прочие символы
+ *
+ * Регистр, в отличие от прежнего String.toLowerCase, приводится посимвольно через
+ * {@link Character#toLowerCase(int)}: так сравнение идёт без промежуточных строк, а хеш и
+ * сравнение ({@link #foldedHash}, {@link #foldedEquals}) дают тот же результат, что и {@link #fold}.
+ * Контекстные правила теряются: "ΟΔΟΣ" приводится к "οδοσ", а не к "οδος", а "İ" — к "i" без точки
+ * сверху. Ключи словаря и слова журнала непереведённых приводятся так же, поэтому совпадения
+ * между ними не нарушаются
+ */
+final class Tokenizer {
+
+    private Tokenizer() {
+    }
+
+    /**
+     * Разбирает диапазон текста на токены и дописывает их в {@code out}
+     *
+     * @param text текст
+     * @param from начало диапазона
+     * @param to   конец диапазона (не включая)
+     * @param out  приёмник диапазонов токенов
+     */
+    static void scan(CharSequence text, int from, int to, TokenRanges out) {
+        int i = from;
+        while (i < to) {
+            while (i < to && isSeparator(text.charAt(i))) i++;
+            if (i >= to) break;
+            int start = i;
+            while (i < to && !isSeparator(text.charAt(i))) i++;
+            out.add(text, start, i);
+        }
+    }
+
+    /**
+     * Разделитель токенов — те же символы, что у регулярного выражения \s
+     */
+    static boolean isSeparator(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Символ слова — буква или число в смысле \p{L} и \p{N}
+     */
+    static boolean isWordChar(int codePoint) {
+        if (Character.isLetter(codePoint)) return true;
+        int type = Character.getType(codePoint);
+        return type == Character.DECIMAL_DIGIT_NUMBER
+                || type == Character.LETTER_NUMBER
+                || type == Character.OTHER_NUMBER;
+    }
+
+    /**
+     * Возвращает диапазон текста в нижнем регистре (посимвольно, см. описание класса)
+     */
+    static String fold(CharSequence text, int from, int to) {
+        StringBuilder sb = new StringBuilder(to - from);
+        int i = from;
+        while (i < to) {
+            int cp = Character.codePointAt(text, i);
+            sb.appendCodePoint(Character.toLowerCase(cp));
+            i += Character.charCount(cp);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Хеш диапазона в нижнем регистре; совпадает с String.hashCode() строки {@link #fold}
+     */
+    static int foldedHash(CharSequence text, int from, int to) {
+        int h = 0;
+        int i = from;
+        while (i < to) {
+            int cp = Character.codePointAt(text, i);
+            int lower = Character.toLowerCase(cp);
+            if (Character.isBmpCodePoint(lower)) {
+                h = 31 * h + lower;
+            } else {
+                h = 31 * h + Character.highSurrogate(lower);
+                h = 31 * h + Character.lowSurrogate(lower);
+            }
+            i += Character.charCount(cp);
+        }
+        return h;
+    }
+
+    /**
+     * Сравнивает диапазон в нижнем регистре со словом {@code folded[offset, offset + length)},
+     * уже приведённым к нижнему регистру
+     */
+    static boolean foldedEquals(CharSequence text, int from, int to, char[] folded, int offset, int length) {
+        int k = offset;
+        int n = offset + length;
+        int i = from;
+        while (i < to) {
+            int cp = Character.codePointAt(text, i);
+            int lower = Character.toLowerCase(cp);
+            if (Character.isBmpCodePoint(lower)) {
+                if (k >= n || folded[k++] != lower) return false;
+            } else {
+                if (k + 1 >= n
+                        || folded[k++] != Character.highSurrogate(lower)
+                        || folded[k++] != Character.lowSurrogate(lower)) {
+                    return false;
+                }
+            }
+            i += Character.charCount(cp);
+        }
+        return k == n;
+    }
+}
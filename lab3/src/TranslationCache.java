@@ -0,0 +1,119 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TranslationCache — ограниченный кэш переводов строк с вытеснением по LRU
+ * Кэш разбит на сегменты по хешу строки, каждый сегмент — LinkedHashMap в порядке доступа
+ * под собственной блокировкой, поэтому потоки, работающие с разными строками, почти не мешают друг другу
+ * Запись привязана к версии словаря, с которой она получена: записи другой версии считаются промахом
+ */
+final class TranslationCache {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxEntries наибольшее количество строк в кэше (>= 1)
+     */
+    TranslationCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Размер кэша должен быть положительным: " + maxEntries);
+        }
+        // число сегментов — степень двойки не больше maxEntries, чтобы пустых сегментов не было;
+        // остаток делится по одной строке на первые сегменты, и ёмкости в сумме дают ровно maxEntries
+        int count = Integer.highestOneBit(Math.min(maxEntries, MAX_SEGMENTS));
+        segments = new Segment[count];
+        int perSegment = maxEntries / count;
+        int remainder = maxEntries % count;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(i < remainder ? perSegment + 1 : perSegment);
+        }
+    }
+
+    /**
+     * Ищет перевод строки, полученный с версией словаря {@code dictionary}
+     *
+     * @return запись кэша или null при промахе
+     */
+    Entry get(String line, DictionaryStack dictionary) {
+        Segment segment = segmentFor(line);
+        Entry entry;
+        synchronized (segment) {
+            entry = segment.get(line);
+        }
+        if (entry == null || entry.dictionary != dictionary) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry;
+    }
+
+    /**
+     * Сохраняет перевод строки
+     */
+    void put(String line, Entry entry) {
+        Segment segment = segmentFor(line);
+        synchronized (segment) {
+            segment.put(line, entry);
+        }
+    }
+
+    /**
+     * Удаляет все записи (счётчики попаданий и промахов сохраняются)
+     */
+    void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    private Segment segmentFor(String line) {
+        int h = line.hashCode();
+        return segments[(h ^ (h >>> 16)) & (segments.length - 1)];
+    }
+
+    /**
+     * Закэшированный результат: перевод и неизвестные слова строки (с повторами, в порядке встречи),
+     * чтобы попадание в кэш учитывало их так же, как полный перевод
+     */
+    static final class Entry {
+        final DictionaryStack dictionary;
+        final String translation;
+        final String[] unknownWords;
+
+        Entry(DictionaryStack dictionary, String translation, String[] unknownWords) {
+            this.dictionary = dictionary;
+            this.translation = translation;
+            this.unknownWords = unknownWords;
+        }
+    }
+
+    private static final class Segment extends LinkedHashMap<String, Entry> {
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > capacity;
+        }
+    }
+}
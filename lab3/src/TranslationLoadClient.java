@@ -0,0 +1,135 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+    Нагрузочный клиент для TranslationServer на localhost
+
+    Пример запуска (сервер: java Main dictionary.txt --server 7070):
+        java TranslationLoadClient 7070 8 10000
+        java TranslationLoadClient 7070 8 10000 input.txt 32
+
+    Аргументы: порт, количество соединений, запросов на соединение,
+    файл со строками запросов (необязательно) и окно — сколько запросов
+    соединение держит в полёте, не дожидаясь ответов (по умолчанию 16)
+*/
+
+public final class TranslationLoadClient {
+
+    private static final int DEFAULT_WINDOW = 16;
+
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Использование: java TranslationLoadClient <порт> <соединений> <запросов на соединение> [файл со строками] [окно]");
+            return;
+        }
+
+        int port;
+        int connectionCount;
+        int requestsPerConnection;
+        int window;
+        List<String> lines;
+        try {
+            port = Integer.parseInt(args[0]);
+            connectionCount = Integer.parseInt(args[1]);
+            requestsPerConnection = Integer.parseInt(args[2]);
+            window = args.length >= 5 ? Integer.parseInt(args[4]) : DEFAULT_WINDOW;
+            lines = new ArrayList<>(args.length >= 4
+                    ? Files.readAllLines(Paths.get(args[3]), StandardCharsets.UTF_8)
+                    : Collections.singletonList("dog look to the window, dog LOOK forward!!"));
+        } catch (NumberFormatException e) {
+            System.err.println("Ожидалось число: " + e.getMessage());
+            return;
+        } catch (IOException e) {
+            System.err.println("Ошибка при чтении файла со строками: " + e.getMessage());
+            return;
+        }
+        // пустые строки не отправляем: сервер отвечает на них, но нагрузки они не создают
+        lines.removeIf(String::isBlank);
+        if (lines.isEmpty() || connectionCount < 1 || requestsPerConnection < 1 || window < 1) {
+            System.err.println("Нет строк для отправки или неверные параметры нагрузки");
+            return;
+        }
+
+        LatencyHistogram latency = new LatencyHistogram();
+        AtomicLong failures = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < connectionCount; c++) {
+            int offset = c;
+            threads.add(new Thread(() -> {
+                try {
+                    runConnection(port, lines, offset, requestsPerConnection, window, latency);
+                } catch (IOException e) {
+                    failures.incrementAndGet();
+                    System.err.println("Ошибка соединения: " + e.getMessage());
+                }
+            }, "load-client-" + c));
+        }
+
+        long started = System.nanoTime();
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        long done = latency.count();
+        System.out.println(String.format(Locale.ROOT,
+                "Запросов: %d за %.2f с, %.0f запросов/с; ошибок соединения: %d",
+                done, seconds, done / seconds, failures.get()));
+        System.out.println(String.format(Locale.ROOT,
+                "Задержка, мкс: среднее %.1f, p50 %.1f, p99 %.1f, p999 %.1f",
+                latency.mean() / 1e3, latency.percentile(0.5) / 1e3,
+                latency.percentile(0.99) / 1e3, latency.percentile(0.999) / 1e3));
+    }
+
+    /**
+     * Отправляет запросы по одному соединению, держа в полёте не больше {@code window} запросов;
+     * задержка запроса — от отправки до получения ответа
+     */
+    private static void runConnection(int port, List<String> lines, int offset, int requests, int window,
+                                      LatencyHistogram latency) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+             BufferedReader reader = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+            ArrayDeque<Long> sentAt = new ArrayDeque<>(window);
+            int sent = 0;
+            int received = 0;
+            while (received < requests) {
+                while (sent < requests && sentAt.size() < window) {
+                    writer.write(lines.get((offset + sent) % lines.size()));
+                    writer.write('\n');
+                    sentAt.addLast(System.nanoTime());
+                    sent++;
+                }
+                writer.flush();
+
+                if (reader.readLine() == null) {
+                    throw new IOException("сервер закрыл соединение");
+                }
+                latency.record(System.nanoTime() - sentAt.removeFirst());
+                received++;
+            }
+        }
+    }
+}
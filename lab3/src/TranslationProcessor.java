@@ -0,0 +1,322 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TranslationProcessor — звено конвейера java.util.concurrent.Flow: принимает строки
+ * и выдаёт их переводы в том же порядке
+ *
+ * Память ограничена: у источника запрашивается не больше {@code capacity} строк сверх уже
+ * отданных получателю, так что принятые, переводимые и ждущие спроса строки вместе не превышают
+ * {@code capacity}. Новые строки запрашиваются порциями, когда освободилась половина места.
+ * Если получатель не успевает, запросы к источнику прекращаются, а не растут очереди
+ *
+ * Строки переводятся пакетами до {@code batchSize} на переданном исполнителе; принятые строки
+ * переводятся заранее, пока предыдущие переводы ждут спроса (в пределах {@code capacity},
+ * которое учитывает и готовые переводы). Если исполнитель — ForkJoinPool,
+ * пакет переводится параллельно через {@link Translator#translateBatch(List, ForkJoinPool)}.
+ * Все сигналы получателю подаются последовательно из задач исполнителя
+ *
+ * Ошибка источника или перевода передаётся получателю сразу, непереданные переводы отбрасываются.
+ * Получатель может быть только один
+ */
+public final class TranslationProcessor implements Flow.Processor<String, String> {
+
+    /**
+     * Размер пакета по умолчанию
+     */
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    private final Translator translator;
+    private final Executor executor;
+    private final int batchSize;
+    private final int capacity;
+
+    /**
+     * Счётчик запросов на обход: обход выполняется одной задачей, пока счётчик не обнулится
+     */
+    private final AtomicInteger pendingDrains = new AtomicInteger();
+
+    // состояние ниже — под блокировкой lock
+    private final Object lock = new Object();
+    private Flow.Subscription upstream;
+    private Flow.Subscriber<? super String> downstream;
+    private final ArrayDeque<String> inputs = new ArrayDeque<>();
+    private final ArrayDeque<String> outputs = new ArrayDeque<>();
+    private long demand;
+    private int outstanding;
+    // всего запрошено у источника и всего от него получено
+    private long requested;
+    private long received;
+    private boolean upstreamDone;
+    private Throwable error;
+    private boolean terminated;
+
+    /**
+     * Создаёт звено с пакетами по {@link #DEFAULT_BATCH_SIZE} строк и запасом в четыре пакета
+     *
+     * @param translator переводчик
+     * @param executor   исполнитель, на котором переводятся пакеты и подаются сигналы
+     */
+    public TranslationProcessor(Translator translator, Executor executor) {
+        this(translator, executor, DEFAULT_BATCH_SIZE, DEFAULT_BATCH_SIZE * 4);
+    }
+
+    /**
+     * @param translator переводчик
+     * @param executor   исполнитель, на котором переводятся пакеты и подаются сигналы
+     * @param batchSize  наибольшее количество строк в пакете (>= 1)
+     * @param capacity   наибольшее количество строк внутри звена (>= batchSize)
+     */
+    public TranslationProcessor(Translator translator, Executor executor, int batchSize, int capacity) {
+        if (batchSize < 1 || capacity < batchSize) {
+            throw new IllegalArgumentException("Неверные размеры пакета и буфера: " + batchSize + ", " + capacity);
+        }
+        this.translator = Objects.requireNonNull(translator);
+        this.executor = Objects.requireNonNull(executor);
+        this.batchSize = batchSize;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super String> subscriber) {
+        Objects.requireNonNull(subscriber);
+        boolean accepted;
+        synchronized (lock) {
+            accepted = downstream == null;
+            if (accepted) downstream = subscriber;
+        }
+        if (!accepted) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("У звена перевода уже есть получатель"));
+            return;
+        }
+        subscriber.onSubscribe(new DownstreamSubscription());
+        scheduleDrain();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        Objects.requireNonNull(subscription);
+        boolean duplicate;
+        synchronized (lock) {
+            duplicate = upstream != null || terminated;
+            if (!duplicate) upstream = subscription;
+        }
+        if (duplicate) {
+            subscription.cancel();
+            return;
+        }
+        scheduleDrain();
+    }
+
+    @Override
+    public void onNext(String item) {
+        Objects.requireNonNull(item);
+        Flow.Subscription overflowed = null;
+        synchronized (lock) {
+            if (terminated || upstreamDone) return;
+            if (received >= requested) {
+                // строки в переводе и ждущие спроса тоже занимают место, поэтому сверяется
+                // общее число полученных строк с общим числом запрошенных, а не длина очереди
+                fail(new IllegalStateException("Источник прислал больше строк, чем было запрошено"));
+                overflowed = upstream;
+            } else {
+                received++;
+                inputs.add(item);
+            }
+        }
+        if (overflowed != null) overflowed.cancel();
+        scheduleDrain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        Objects.requireNonNull(throwable);
+        synchronized (lock) {
+            upstreamDone = true;
+            fail(throwable);
+        }
+        scheduleDrain();
+    }
+
+    @Override
+    public void onComplete() {
+        synchronized (lock) {
+            upstreamDone = true;
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * Запоминает первую ошибку (под блокировкой lock)
+     */
+    private void fail(Throwable throwable) {
+        if (error == null) error = throwable;
+    }
+
+    private void scheduleDrain() {
+        if (pendingDrains.getAndIncrement() != 0) return;
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // исполнитель остановлен — сообщаем об ошибке в текущем потоке
+            synchronized (lock) {
+                fail(e);
+            }
+            drain();
+        }
+    }
+
+    /**
+     * Обход состояния: отдаёт переводы по спросу, переводит очередной пакет, дозапрашивает
+     * строки у источника и подаёт завершающий сигнал. Одновременно выполняется не больше одного обхода
+     */
+    private void drain() {
+        int missed = 1;
+        while (true) {
+            while (step()) {
+                // продолжаем, пока есть работа
+            }
+            missed = pendingDrains.addAndGet(-missed);
+            if (missed == 0) return;
+        }
+    }
+
+    /**
+     * Выполняет одно действие обхода
+     *
+     * @return true, если действие выполнено и стоит проверить состояние снова
+     */
+    private boolean step() {
+        Flow.Subscriber<? super String> subscriber;
+        Flow.Subscription source;
+        String next = null;
+        List<String> batch = null;
+        Throwable failure = null;
+        boolean complete = false;
+        long refill = 0;
+
+        synchronized (lock) {
+            subscriber = downstream;
+            source = upstream;
+            if (terminated || subscriber == null) return false;
+
+            if (error != null) {
+                failure = error;
+                terminated = true;
+                inputs.clear();
+                outputs.clear();
+            } else if (demand > 0 && !outputs.isEmpty()) {
+                next = outputs.poll();
+                demand--;
+                outstanding--;
+            } else if (!inputs.isEmpty()) {
+                // готовые переводы не ждут спроса впустую: следующий пакет переводится заранее,
+                // место под него уже учтено в outstanding
+                batch = new ArrayList<>(Math.min(batchSize, inputs.size()));
+                while (batch.size() < batchSize && !inputs.isEmpty()) {
+                    batch.add(inputs.poll());
+                }
+            } else if (upstreamDone && inputs.isEmpty() && outputs.isEmpty()) {
+                complete = true;
+                terminated = true;
+            }
+
+            // дозапрашиваем строки, когда освободилась половина места
+            if (!terminated && source != null && !upstreamDone && capacity - outstanding >= Math.max(1, capacity / 2)) {
+                refill = capacity - outstanding;
+                outstanding = capacity;
+                requested += refill;
+            }
+        }
+
+        if (refill > 0) source.request(refill);
+        if (failure != null) {
+            if (source != null) source.cancel();
+            subscriber.onError(failure);
+            return false;
+        }
+        if (complete) {
+            subscriber.onComplete();
+            return false;
+        }
+        if (next != null) {
+            subscriber.onNext(next);
+            return true;
+        }
+        if (batch != null) {
+            List<String> translated;
+            try {
+                translated = translate(batch);
+            } catch (RuntimeException e) {
+                synchronized (lock) {
+                    fail(e);
+                }
+                return true;
+            }
+            synchronized (lock) {
+                if (!terminated) outputs.addAll(translated);
+            }
+            return true;
+        }
+        return refill > 0;
+    }
+
+    private List<String> translate(List<String> batch) {
+        if (executor instanceof ForkJoinPool && batch.size() > 1) {
+            return translator.translateBatch(batch, (ForkJoinPool) executor);
+        }
+        List<String> translated = new ArrayList<>(batch.size());
+        for (String line : batch) {
+            translated.add(translator.translate(line));
+        }
+        return translated;
+    }
+
+    /**
+     * Подписка получателя: спрос и отмена
+     */
+    private final class DownstreamSubscription implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+            synchronized (lock) {
+                if (terminated) return;
+                if (n <= 0) {
+                    fail(new IllegalArgumentException("Запрошено неположительное количество элементов: " + n));
+                } else {
+                    demand = (demand + n < 0) ? Long.MAX_VALUE : demand + n;
+                }
+            }
+            scheduleDrain();
+        }
+
+        @Override
+        public void cancel() {
+            Flow.Subscription source;
+            synchronized (lock) {
+                if (terminated) return;
+                terminated = true;
+                inputs.clear();
+                outputs.clear();
+                source = upstream;
+            }
+            if (source != null) source.cancel();
+        }
+    }
+}
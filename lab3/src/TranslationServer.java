@@ -0,0 +1,178 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * TranslationServer — локальный TCP-сервер перевода с одним общим {@link Translator}
+ * Протокол строковый (UTF-8): клиент присылает строку, заканчивающуюся '\n', и получает её перевод
+ * одной строкой. Запросы можно отправлять конвейером, не дожидаясь ответов, — ответы
+ * приходят в том же порядке
+ *
+ * Сервер слушает только loopback-интерфейс. Каждое соединение обслуживается своим потоком:
+ * виртуальным, если среда выполнения их поддерживает (Java 21+), иначе обычным потоком из пула.
+ * Несколько строк, пришедших вместе, соединение переводит само в своём потоке; от
+ * {@link Translator#MIN_BATCH_CHUNK} строк они отправляются в общий {@link LineBatcher},
+ * который переводит их пакетами параллельно
+ */
+public class TranslationServer implements Closeable {
+
+    /**
+     * Порт по умолчанию
+     */
+    public static final int DEFAULT_PORT = 7070;
+
+    private final Translator translator;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+    private final LineBatcher batcher;
+    private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+    private final Thread acceptor;
+    private volatile boolean closed;
+
+    /**
+     * Запускает сервер
+     *
+     * @param translator переводчик, общий для всех соединений
+     * @param port       порт (0 — выбрать свободный)
+     * @throws IOException если не удалось открыть порт
+     */
+    public TranslationServer(Translator translator, int port) throws IOException {
+        this.translator = translator;
+        this.serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+        this.connections = newConnectionExecutor();
+        this.batcher = new LineBatcher(translator);
+        this.acceptor = new Thread(this::acceptLoop, "translation-server");
+        this.acceptor.setDaemon(true);
+        this.acceptor.start();
+    }
+
+    /**
+     * Возвращает порт, на котором слушает сервер
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Ошибка при приёме соединения: " + e.getMessage());
+                }
+                continue;
+            }
+            openSockets.add(socket);
+            connections.execute(() -> serve(socket));
+        }
+    }
+
+    /**
+     * Обслуживает одно соединение: строки, уже пришедшие от клиента, переводятся
+     * вместе, ответы пишутся по порядку одной записью
+     */
+    private void serve(Socket socket) {
+        try (Socket s = socket;
+             BufferedReader reader = new BufferedReader(
+                     new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter writer = new BufferedWriter(
+                     new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            s.setTcpNoDelay(true);
+            List<String> lines = new ArrayList<>();
+            List<CompletableFuture<String>> pending = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+                while (lines.size() < LineBatcher.MAX_BATCH && reader.ready()
+                        && (line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+                if (lines.size() < Translator.MIN_BATCH_CHUNK) {
+                    // параллельный перевод такому числу строк не поможет, а общая очередь
+                    // добавила бы только ожидание: переводим в потоке соединения
+                    for (String l : lines) {
+                        writer.write(translator.translate(l));
+                        writer.write('\n');
+                    }
+                } else {
+                    for (String l : lines) {
+                        pending.add(batcher.submit(l));
+                    }
+                    for (CompletableFuture<String> result : pending) {
+                        writer.write(result.join());
+                        writer.write('\n');
+                    }
+                    pending.clear();
+                }
+                writer.flush();
+                lines.clear();
+            }
+        } catch (IOException e) {
+            // клиент разорвал соединение или сервер остановлен — соединение просто закрывается
+        } catch (RuntimeException e) {
+            if (!closed) {
+                Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+                System.err.println("Ошибка при переводе запроса: " + cause.getMessage());
+            }
+        } finally {
+            openSockets.remove(socket);
+        }
+    }
+
+    /**
+     * Останавливает сервер и закрывает открытые соединения
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+            // сокет уже закрыт — игнорируем
+        }
+        for (Socket socket : openSockets) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // соединение уже закрыто — игнорируем
+            }
+        }
+        connections.shutdownNow();
+        batcher.close();
+    }
+
+    /**
+     * Поток на соединение: виртуальные потоки, если они есть в среде выполнения, иначе пул обычных потоков
+     * Метод ищется по имени, чтобы код собирался и работал и на Java 17
+     */
+    private static ExecutorService newConnectionExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "translation-connection");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -2,9 +2,14 @@ import exceptions.FileReadException;
 import exceptions.InvalidFileFormatException;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Translator — использует Dictionary для перевода входного текста.
@@ -13,12 +18,77 @@ import java.util.*;
  *  - регистр игнорируется при поиске ключей (в словаре хранятся ключи в lower-case)
  *  - если найдено несколько совпадений — выбирается вариант с максимальным количеством слов в ключе
  *  - при совпадении сохраняется пунктуация, стоящая в конце последнего слова фразы
- *  - неизвестные "чистые" слова собираются в множество unknownWords (в нижнем регистре)
+ *  - исходные разделители между токенами (пробелы, табуляции, переводы строк) сохраняются
+ *  - неизвестные "чистые" слова собираются в unknownWords (в нижнем регистре) со счётчиком встреч
+ *
+ * Методы перевода можно вызывать из нескольких потоков: неизвестные слова пишутся
+ * в потокобезопасный {@link UnknownWordCollector} без общих блокировок
+ *
+ * Словарей может быть несколько ({@link #Translator(List)}): базовый и слои поверх него.
+ * Самое длинное совпадение ищется во всех слоях сразу, при равной длине побеждает более
+ * приоритетный (указанный позже) слой. Слой перезагружается отдельно ({@link #reloadLayer(int)}),
+ * остальные слои при этом не перечитываются
+ *
+ * Словарь можно перезагрузить без остановки ({@link #reloadDictionary()} или наблюдение за файлом
+ * через {@link #startDictionaryWatch()}): новая версия строится в фоне и публикуется одной
+ * атомарной заменой ссылки. Каждый вызов перевода берёт ссылку один раз и работает
+ * с одной версией словаря до конца
  */
 public class Translator {
 
-    private final Dictionary dictionary;
-    private final Set<String> unknownWords = new TreeSet<>(); // отсортированный набор для стабильности
+    /**
+     * Предельный размер окна токенов при потоковом переводе: ограничивает память
+     * на вырожденных входах (например, длинные цепочки токенов из одной пунктуации)
+     */
+    private static final int MAX_STREAM_WINDOW = 4096;
+
+    /**
+     * Запас сверх самого длинного слова словаря для токена при потоковом переводе:
+     * пунктуация вокруг слова. Токен длиннее ни с одним ключом не совпадёт,
+     * поэтому целиком в окне не хранится и выводится без перевода
+     */
+    private static final int STREAM_TOKEN_MARGIN = 4096;
+
+    /**
+     * Диапазоны токенов строки — переиспользуются в пределах потока
+     */
+    private static final ThreadLocal<TokenRanges> LINE_TOKENS = ThreadLocal.withInitial(TokenRanges::new);
+
+    /**
+     * Счётчики токенов строки для метрик — переиспользуются в пределах потока
+     */
+    private static final ThreadLocal<TranslatorMetrics.Counts> LINE_COUNTS =
+            ThreadLocal.withInitial(TranslatorMetrics.Counts::new);
+
+    /**
+     * Через сколько токенов потоковый перевод переносит свои счётчики в общие метрики
+     */
+    private static final int STREAM_METRICS_BATCH = 4096;
+
+    /**
+     * Файл непереведённых слов по умолчанию
+     */
+    public static final Path UNKNOWN_WORDS_FILE = Paths.get("output", "unknown_words.txt");
+
+    /**
+     * Сколько похожих слов журнал непереведённых слов приводит к каждому слову
+     */
+    private static final int REPORT_SUGGESTIONS = 3;
+
+    private final List<String> dictionaryFiles;
+    private final AtomicReference<DictionaryStack> dictionary = new AtomicReference<>();
+    private final Object reloadLock = new Object();
+    private List<DictionaryWatcher> watchers;
+    private volatile TranslationCache cache;
+    private final UnknownWordCollector unknownWords = new UnknownWordCollector();
+    private final TranslatorMetrics metrics = new TranslatorMetrics(dictionary::get);
+    private volatile UnknownWordLog unknownWordLog;
+
+    /**
+     * Минимальный размер порции строк для параллельного пакетного перевода:
+     * меньшие порции не окупают накладные расходы на задачи
+     */
+    static final int MIN_BATCH_CHUNK = 16;
 
     /**
      * Создаёт переводчик и загружает словарь по указанному пути
@@ -28,8 +98,170 @@ public class Translator {
      * @throws InvalidFileFormatException при ошибках формата
      */
     public Translator(String dictionaryFile) throws FileReadException, InvalidFileFormatException {
-        this.dictionary = new Dictionary(dictionaryFile);
-        System.out.println("Словарь загружен. Записей: " + dictionary.size());
+        this(Collections.singletonList(dictionaryFile));
+    }
+
+    /**
+     * Создаёт переводчик со стеком словарей
+     *
+     * @param dictionaryFiles пути к словарям: первый — базовый, каждый следующий приоритетнее предыдущих
+     * @throws FileReadException при проблемах чтения файла
+     * @throws InvalidFileFormatException при ошибках формата
+     */
+    public Translator(List<String> dictionaryFiles) throws FileReadException, InvalidFileFormatException {
+        if (dictionaryFiles.isEmpty()) {
+            throw new IllegalArgumentException("Не указан ни один словарь");
+        }
+        this.dictionaryFiles = new ArrayList<>(dictionaryFiles);
+        this.dictionary.set(loadStack());
+        metrics.recordLoad();
+        System.out.println("Словарь загружен. Записей: " + describe(dictionary.get()));
+    }
+
+    private DictionaryStack loadStack() throws FileReadException, InvalidFileFormatException {
+        List<Dictionary> layers = new ArrayList<>(dictionaryFiles.size());
+        for (String file : dictionaryFiles) {
+            layers.add(new Dictionary(file));
+        }
+        return new DictionaryStack(layers);
+    }
+
+    /**
+     * Количество записей для сообщений: для стека — сумма и разбивка по слоям
+     */
+    private static String describe(DictionaryStack stack) {
+        if (stack.layerCount() == 1) return String.valueOf(stack.size());
+        StringJoiner layers = new StringJoiner(" + ", stack.size() + " (", ")");
+        for (int i = 0; i < stack.layerCount(); i++) {
+            layers.add(String.valueOf(stack.layer(i).size()));
+        }
+        return layers.toString();
+    }
+
+    /**
+     * Перечитывает все словари стека и атомарно подменяет текущую версию.
+     * Переводы, начатые до замены, дорабатывают со старой версией
+     *
+     * @throws FileReadException          при проблемах чтения файла (текущая версия сохраняется)
+     * @throws InvalidFileFormatException при ошибках формата (текущая версия сохраняется)
+     */
+    public void reloadDictionary() throws FileReadException, InvalidFileFormatException {
+        // перезагрузки выполняются по очереди, чтобы старая версия не перезаписала более новую
+        synchronized (reloadLock) {
+            publish(loadStack());
+        }
+    }
+
+    /**
+     * Перечитывает один слой стека; остальные слои (в том числе базовый) не перестраиваются
+     *
+     * @param index номер слоя: 0 — базовый словарь, далее в порядке приоритета
+     * @throws FileReadException          при проблемах чтения файла (текущая версия сохраняется)
+     * @throws InvalidFileFormatException при ошибках формата (текущая версия сохраняется)
+     */
+    public void reloadLayer(int index) throws FileReadException, InvalidFileFormatException {
+        // чтение под той же блокировкой, что и в reloadDictionary: иначе более раннее чтение
+        // файла могло бы опубликоваться после более позднего
+        synchronized (reloadLock) {
+            Dictionary fresh = new Dictionary(dictionaryFiles.get(index));
+            publish(dictionary.get().withLayer(index, fresh));
+        }
+    }
+
+    private void publish(DictionaryStack fresh) {
+        dictionary.set(fresh);
+        metrics.recordLoad();
+        // записи старой версии и так не совпадут по словарю, очистка лишь освобождает память
+        TranslationCache lineCache = cache;
+        if (lineCache != null) lineCache.clear();
+    }
+
+    /**
+     * Возвращает количество словарей в стеке
+     */
+    public int getLayerCount() {
+        return dictionaryFiles.size();
+    }
+
+    /**
+     * Включает кэш переводов строк для {@link #translate(String)} и пакетного перевода.
+     * Кэш ограничен по размеру и вытесняет давно не использованные строки (LRU),
+     * при смене словаря его записи становятся недействительными.
+     * Повторный вызов заменяет кэш новым пустым
+     *
+     * @param maxEntries наибольшее количество строк в кэше (>= 1)
+     */
+    public void enableCache(int maxEntries) {
+        cache = new TranslationCache(maxEntries);
+    }
+
+    /**
+     * Выключает кэш переводов строк
+     */
+    public void disableCache() {
+        cache = null;
+    }
+
+    /**
+     * Возвращает количество попаданий в кэш строк (0, если кэш выключен)
+     */
+    public long getCacheHits() {
+        TranslationCache lineCache = cache;
+        return lineCache == null ? 0 : lineCache.hits();
+    }
+
+    /**
+     * Возвращает количество промахов кэша строк (0, если кэш выключен)
+     */
+    public long getCacheMisses() {
+        TranslationCache lineCache = cache;
+        return lineCache == null ? 0 : lineCache.misses();
+    }
+
+    /**
+     * Возвращает метрики переводчика (задержки, количество строк и токенов, доля найденных фраз).
+     * Метрики собираются всегда; для доступа через JMX см. {@link TranslatorMetrics#registerMBean()}
+     */
+    public TranslatorMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Запускает фоновое наблюдение за файлами словарей: при изменении файла перезагружается
+     * только его слой. Ошибки загрузки выводятся в System.err, прежняя версия остаётся в работе
+     *
+     * @throws IOException если не удалось подписаться на изменения каталога
+     */
+    public synchronized void startDictionaryWatch() throws IOException {
+        if (watchers != null) return;
+        List<DictionaryWatcher> started = new ArrayList<>(dictionaryFiles.size());
+        try {
+            for (int i = 0; i < dictionaryFiles.size(); i++) {
+                int layer = i;
+                started.add(new DictionaryWatcher(Paths.get(dictionaryFiles.get(i)), () -> {
+                    try {
+                        reloadLayer(layer);
+                        System.out.println("Словарь перезагружен (" + dictionaryFiles.get(layer) + "). Записей: "
+                                + describe(dictionary.get()));
+                    } catch (FileReadException | InvalidFileFormatException e) {
+                        System.err.println("Не удалось перезагрузить словарь: " + e.getMessage());
+                    }
+                }));
+            }
+        } catch (IOException e) {
+            started.forEach(DictionaryWatcher::close);
+            throw e;
+        }
+        watchers = started;
+    }
+
+    /**
+     * Останавливает наблюдение за файлами словарей
+     */
+    public synchronized void stopDictionaryWatch() {
+        if (watchers == null) return;
+        watchers.forEach(DictionaryWatcher::close);
+        watchers = null;
     }
 
     /**
@@ -39,149 +271,395 @@ public class Translator {
      * @return переведённая строка
      */
     public String translate(String inputText) {
-        if (inputText == null || inputText.trim().isEmpty()) {
-            return inputText;
+        return translateLine(inputText, dictionary.get());
+    }
+
+    /**
+     * Пакетный перевод строк на общем пуле ForkJoin с порциями размера по умолчанию
+     *
+     * @param lines исходные строки
+     * @return переводы в том же порядке, что и исходные строки
+     * @see #translateBatch(List, int, ForkJoinPool)
+     */
+    public List<String> translateBatch(List<String> lines) {
+        return translateBatch(lines, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Пакетный перевод строк на указанном пуле с порциями размера по умолчанию
+     *
+     * @param lines исходные строки
+     * @param pool  пул, на котором выполняется перевод
+     * @return переводы в том же порядке, что и исходные строки
+     */
+    public List<String> translateBatch(List<String> lines, ForkJoinPool pool) {
+        int chunkSize = Math.max(MIN_BATCH_CHUNK, lines.size() / (pool.getParallelism() * 4));
+        return translateBatch(lines, chunkSize, pool);
+    }
+
+    /**
+     * Пакетный перевод строк: вход делится на порции по {@code chunkSize} строк,
+     * которые переводятся параллельно на пуле {@code pool}.
+     * Каждая порция пишет результаты в свои позиции выходного массива, поэтому порядок
+     * строк в результате совпадает с исходным. Неизвестные слова всех порций
+     * попадают в общий потокобезопасный сборщик unknownWords
+     *
+     * @param lines     исходные строки
+     * @param chunkSize количество строк в одной порции (>= 1)
+     * @param pool      пул, на котором выполняется перевод
+     * @return переводы в том же порядке, что и исходные строки
+     */
+    public List<String> translateBatch(List<String> lines, int chunkSize, ForkJoinPool pool) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Размер порции должен быть положительным: " + chunkSize);
         }
+        String[] results = new String[lines.size()];
+        // произвольный доступ нужен порциям для чтения своих строк
+        List<String> source = (lines instanceof RandomAccess) ? lines : new ArrayList<>(lines);
 
-        // разделяем по пробелам
-        String[] tokens = inputText.split("\\s+");
-        StringBuilder result = new StringBuilder();
+        DictionaryStack dict = dictionary.get();
+        pool.invoke(new BatchTask(dict, source, results, 0, results.length, chunkSize));
+        return Arrays.asList(results);
+    }
 
-        int i = 0;
-        while (i < tokens.length) {
-            Match match = findLongestMatch(tokens, i);
-
-            if (match != null) {
-                // добавляем пробел между элементами результата
-                if (result.length() > 0) result.append(" ");
-                result.append(match.translationWithPunctuation);
-                i += match.wordCount;
-            } else {
-                // нет совпадения — проверяем, надо ли занести слово в unknownWords
-                if (result.length() > 0) result.append(" ");
-                result.append(tokens[i]);
-
-                String clean = cleanWord(tokens[i]);
-                if (!clean.isEmpty() && isAlnumWord(clean)) {
-                    String low = clean.toLowerCase(Locale.ROOT);
-                    if (!dictionary.getEntries().containsKey(low)) {
-                        unknownWords.add(low);
-                    }
-                }
-                i++;
+    /**
+     * Перевод одной строки с указанной версией словаря с учётом задержки в метриках
+     */
+    private String translateLine(String inputText, DictionaryStack dict) {
+        long started = System.nanoTime();
+        String translated = translateCached(inputText, dict);
+        metrics.recordLine(System.nanoTime() - started);
+        return translated;
+    }
+
+    /**
+     * Перевод одной строки через кэш строк (если он включён).
+     * При попадании в кэш неизвестные слова строки учитываются так же, как при полном переводе
+     */
+    private String translateCached(String inputText, DictionaryStack dict) {
+        TranslationCache lineCache = cache;
+        if (lineCache == null || inputText == null) {
+            return translateUncached(inputText, dict, null);
+        }
+
+        TranslationCache.Entry hit = lineCache.get(inputText, dict);
+        if (hit != null) {
+            for (String word : hit.unknownWords) {
+                noteUnknown(word);
             }
+            return hit.translation;
         }
 
-        return result.toString();
+        List<String> unknown = new ArrayList<>();
+        String translated = translateUncached(inputText, dict, unknown);
+        lineCache.put(inputText, new TranslationCache.Entry(dict, translated, unknown.toArray(new String[0])));
+        return translated;
     }
 
     /**
-     * Поиск наилучшего (длинного) совпадения, начиная с позиции startIndex в массиве токенов.
-     * Возвращает объект Match с переводом (и сохранённой пунктуацией) и количеством слов, которые закрывает совпадение.
+     * Перевод одной строки без кэша.
+     * Исходные разделители между токенами (пробелы, табуляции, переводы строк) сохраняются;
+     * разделители внутри переведённой фразы заменяются её переводом
+     *
+     * @param unknownOut если не null, сюда дописываются учтённые неизвестные слова
      */
-    private Match findLongestMatch(String[] tokens, int startIndex) {
-        String bestTranslation = null;
-        int bestWordCount = 0;
-        String bestPunctuation = "";
-
-        // Строим фразу по словам: от startIndex до j
-        StringBuilder phraseBuilder = new StringBuilder();
-        for (int j = startIndex; j < tokens.length; j++) {
-            if (phraseBuilder.length() > 0) phraseBuilder.append(" ");
+    private String translateUncached(String inputText, DictionaryStack dict, List<String> unknownOut) {
+        if (inputText == null || inputText.trim().isEmpty()) {
+            return inputText;
+        }
 
-            // для всех слов внутри фразы используем очищенную форму (без ведущих/концевых небуквенных символов)
-            String clean = cleanWord(tokens[j]).toLowerCase(Locale.ROOT);
-            phraseBuilder.append(clean);
+        TokenRanges tokens = LINE_TOKENS.get();
+        tokens.clear();
+        Tokenizer.scan(inputText, 0, inputText.length(), tokens);
 
-            String candidate = phraseBuilder.toString().replaceAll("\\s+", " ").trim();
+        StringBuilder result = new StringBuilder(inputText.length() + 16);
+        result.append(inputText, 0, tokens.start(0));
+        Match match = new Match();
+        TranslatorMetrics.Counts counts = LINE_COUNTS.get();
+        int i = 0;
+        while (i < tokens.count()) {
+            i += translateAt(dict, inputText, tokens, i, result, unknownOut, match, counts);
+        }
+        metrics.add(counts);
+        return result.toString();
+    }
 
-            if (candidate.isEmpty()) {
-                // если чистые части пусты (например токен только пунктуация), прекращаем расширение
-                break;
+    /**
+     * Потоковый перевод: читает текст из {@code input} и пишет перевод в {@code output},
+     * держа в памяти только буфер чтения и окно из нескольких токенов.
+     * Фразы могут переходить через границы строк и буфера.
+     * Как и {@link #translate(String)}, сохраняет исходные разделители (пробелы, табуляции,
+     * переводы строк): разделитель после последнего слова фразы переносится в вывод.
+     * Токен или разделитель длиннее самого длинного слова словаря (с запасом) не накапливается:
+     * он обрывает фразы, как конец входа, и переносится в вывод без перевода.
+     * Потоки не закрываются
+     *
+     * @param input  источник текста
+     * @param output приёмник перевода
+     * @throws IOException при ошибках чтения или записи
+     */
+    public void translate(Reader input, Writer output) throws IOException {
+        DictionaryStack dict = dictionary.get();
+        TokenReader reader = new TokenReader(input, dict.maxWordLength() + STREAM_TOKEN_MARGIN);
+        StringBuilder window = new StringBuilder();
+        reader.transferSeparator(output);
+
+        // совпадение на голове окна окончательно, когда за ним прочитано больше слов,
+        // чем в самом длинном ключе: следующее слово обрывает и фразу, и хвостовую пунктуацию
+        int lookahead = dict.maxDepth() + 1;
+        TokenRanges tokens = new TokenRanges();
+        StringBuilder out = new StringBuilder();
+        Match match = new Match();
+        TranslatorMetrics.Counts counts = new TranslatorMetrics.Counts();
+        int words = 0;
+        boolean eof = false;
+        boolean truncated = false;
+
+        while (true) {
+            while (!eof && !truncated && words < lookahead && tokens.count() < MAX_STREAM_WINDOW) {
+                if (!reader.readToken(window, tokens)) {
+                    eof = true;
+                } else {
+                    if (tokens.isWord(tokens.count() - 1)) words++;
+                    truncated = reader.isTruncated();
+                }
             }
+            if (tokens.count() == 0) break;
 
-            // проверка прямой фразы
-            if (dictionary.getEntries().containsKey(candidate)) {
-                // количество слов в фразе = j - startIndex + 1
-                int wc = j - startIndex + 1;
-                // выбираем большую по словарной длине (числу слов)
-                if (wc > bestWordCount) {
-                    bestWordCount = wc;
-                    bestTranslation = dictionary.getEntries().get(candidate);
-                    bestPunctuation = trailingPunctuation(tokens[j]);
-                }
+            out.setLength(0);
+            int consumed = translateAt(dict, window, tokens, 0, out, null, match, counts);
+            output.append(out);
+            if (counts.tokens >= STREAM_METRICS_BATCH) metrics.add(counts);
+
+            for (int k = 0; k < consumed; k++) {
+                if (tokens.isWord(k)) words--;
+            }
+            int cut = consumed < tokens.count() ? tokens.start(consumed) : window.length();
+            window.delete(0, cut);
+            tokens.removeFirst(consumed, cut);
+            if (truncated && tokens.count() == 0) {
+                // обрезанный токен или разделитель обрывает фразы, как конец входа:
+                // окно до него переведено, остаток идёт в вывод как есть
+                reader.transferRest(output);
+                truncated = false;
             }
         }
+        metrics.add(counts);
+        output.flush();
+    }
 
-        if (bestTranslation != null) {
-            String translationWithPunct = bestTranslation + bestPunctuation;
-            return new Match(translationWithPunct, bestWordCount);
+    /**
+     * Потоковый перевод файла в файл (UTF-8)
+     *
+     * @param input  путь к исходному файлу
+     * @param output путь к файлу результата (перезаписывается)
+     * @throws IOException при ошибках чтения или записи
+     */
+    public void translate(Path input, Path output) throws IOException {
+        try (Reader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            translate(reader, writer);
         }
-
-        return null;
     }
 
     /**
-     * Извлекает конечную пунктуацию (если есть) из токена.
-     * Например: "window," -> "," ; "hello!!" -> "!!"; "foo" -> ""
-     * 
-     * @param inputText исходный токен
-     * @return переведённая строка
+     * Переводит текст, начиная с токена {@code i}: дописывает в {@code out} перевод самой длинной
+     * фразы с сохранённой конечной пунктуацией (или сам токен, если совпадения нет)
+     * и исходный разделитель после последнего поглощённого токена
+     *
+     * @param counts счётчики токенов для метрик
+     * @return количество поглощённых токенов
      */
-    private String trailingPunctuation(String token) {
-        if (token == null || token.isEmpty()) return "";
-        int idx = token.length() - 1;
-        while (idx >= 0 && !isLetterOrDigit(token.charAt(idx))) {
-            idx--;
+    private int translateAt(DictionaryStack dict, CharSequence text, TokenRanges tokens, int i,
+                            StringBuilder out, List<String> unknownOut, Match match,
+                            TranslatorMetrics.Counts counts) {
+        int last;
+        if (findLongestMatch(dict, text, tokens, i, match)) {
+            last = i + match.wordCount - 1;
+            dict.layer(match.layer).getPhraseIndex().appendTranslation(match.state, out);
+            out.append(text, tokens.cleanEnd(last), tokens.end(last));
+            counts.matched(match.wordCount);
+        } else {
+            // нет совпадения — проверяем, надо ли занести слово в unknownWords
+            last = i;
+            out.append(text, tokens.start(i), tokens.end(i));
+            counts.unmatched++;
+            if (recordUnknown(dict, text, tokens, i, unknownOut)) counts.unknown++;
         }
-        return token.substring(idx + 1); // может быть ""
+        int separatorEnd = last + 1 < tokens.count() ? tokens.start(last + 1) : text.length();
+        out.append(text, tokens.end(last), separatorEnd);
+        counts.tokens += last - i + 1;
+        return last - i + 1;
     }
 
     /**
-     * Удаляет ведущие и завершающие не-алфавитно-числовые символы.
-     * Сохраняет буквы любого языка и цифры.
+     * Заносит токен без перевода в unknownWords, если это "чистое" слово, которого нет в словаре
      *
-     * Примеры:
-     *   "\"hello,\"" -> "hello"
-     *   "(привет)" -> "привет"
-     * 
-     * @param word исходное слово
-     * @return переведённая строка
+     * @param unknownOut если не null, учтённое слово дописывается и сюда (для кэша строк)
+     * @return true, если слово занесено в unknownWords
      */
-    private String cleanWord(String word) {
-        if (word == null) return "";
-        // удаляем ведущие небуквенно-цифровые символы
-        String s = word.replaceAll("^([^\\p{L}\\p{N}])+",""); // начало
-        // и завершающие небуквенно-цифровые символы
-        s = s.replaceAll("([^\\p{L}\\p{N}])+$",""); // конец
-        return s;
+    private boolean recordUnknown(DictionaryStack dict, CharSequence text, TokenRanges tokens, int i,
+                                  List<String> unknownOut) {
+        if (!tokens.isWord(i)) return false;
+        int from = tokens.cleanStart(i);
+        int to = tokens.cleanEnd(i);
+
+        // в unknownWords попадают только слова целиком из букв и цифр
+        for (int k = from; k < to; ) {
+            int cp = Character.codePointAt(text, k);
+            if (!Character.isLetterOrDigit(cp)) return false;
+            k += Character.charCount(cp);
+        }
+
+        for (int layer = 0; layer < dict.layerCount(); layer++) {
+            PhraseIndex index = dict.layer(layer).getPhraseIndex();
+            long state = index.next(index.root(), text, from, to);
+            if (state != PhraseIndex.NO_STATE && index.hasTranslation(state)) return false;
+        }
+
+        String low = Tokenizer.fold(text, from, to);
+        noteUnknown(low);
+        if (unknownOut != null) unknownOut.add(low);
+        return true;
     }
 
-    private boolean isLetterOrDigit(char c) {
-        return Character.isLetterOrDigit(c);
+    /**
+     * Учитывает встречу неизвестного слова; впервые встреченное слово передаётся в журнал (если он включён)
+     */
+    private void noteUnknown(String word) {
+        if (unknownWords.record(word)) {
+            UnknownWordLog log = unknownWordLog;
+            if (log != null) log.offer(word);
+        }
     }
 
     /**
-     * Проверяет, состоит ли слово только из букв/цифр (после очистки)
-     * 
-     * @param word исходное слово
-     * @return bool
+     * Поиск наилучшего (длинного) совпадения, начиная с токена startIndex.
+     * Для слов фразы используется очищенная часть токена (без ведущих/концевых небуквенных символов),
+     * регистр приводится на лету. Фраза проходит по пословному дереву словаря: поиск прекращается,
+     * как только ни один ключ не может продолжиться следующим словом.
+     * Слои стека просматриваются от самого приоритетного: совпадение нижнего слоя
+     * принимается, только если оно строго длиннее уже найденного
+     *
+     * @param best сюда записываются слой, состояние индекса и количество токенов лучшего совпадения
+     * @return true, если совпадение найдено
      */
-    private boolean isAlnumWord(String word) {
-        if (word == null || word.isEmpty()) return false;
-        return word.codePoints().allMatch(cp -> Character.isLetterOrDigit(cp));
+    private boolean findLongestMatch(DictionaryStack dict, CharSequence text, TokenRanges tokens,
+                                     int startIndex, Match best) {
+        best.wordCount = 0;
+        for (int layer = dict.layerCount() - 1; layer >= 0; layer--) {
+            findLongestMatch(dict.layer(layer).getPhraseIndex(), layer, text, tokens, startIndex, best);
+        }
+        return best.wordCount > 0;
+    }
+
+    private static void findLongestMatch(PhraseIndex index, int layer, CharSequence text, TokenRanges tokens,
+                                         int startIndex, Match best) {
+        long state = index.root();
+        for (int j = startIndex; j < tokens.count(); j++) {
+            if (!tokens.isWord(j)) {
+                // токен только из пунктуации в начале фразы — совпадения нет
+                if (j == startIndex) break;
+                // внутри фразы такой токен прозрачен: фраза не меняется,
+                // но совпадение захватывает его как конечную пунктуацию
+            } else {
+                state = index.next(state, text, tokens.cleanStart(j), tokens.cleanEnd(j));
+                if (state == PhraseIndex.NO_STATE) break;
+            }
+
+            if (j - startIndex + 1 > best.wordCount && index.hasTranslation(state)) {
+                best.wordCount = j - startIndex + 1;
+                best.layer = layer;
+                best.state = state;
+            }
+        }
     }
 
     /**
      * Возвращает множество собранных неизвестных слов (нижний регистр)
      */
     public Set<String> getUnknownWords() {
-        return Collections.unmodifiableSet(unknownWords);
+        return unknownWords.words();
+    }
+
+    /**
+     * Возвращает количество встреч неизвестного слова
+     *
+     * @param word слово в нижнем регистре
+     * @return сколько раз слово осталось без перевода (0, если ни разу)
+     */
+    public long getUnknownWordCount(String word) {
+        return unknownWords.count(word);
+    }
+
+    /**
+     * Возвращает {@code k} самых частых неизвестных слов — кандидатов на пополнение словаря
+     *
+     * @param k количество слов
+     * @return пары "слово -> количество встреч", самые частые первыми
+     */
+    public List<Map.Entry<String, Long>> getTopUnknownWords(int k) {
+        return unknownWords.top(k);
+    }
+
+    /**
+     * Подсказывает похожие слова из словаря ("возможно, имелось в виду") для слова без перевода:
+     * однословные ключи всех слоёв на расстоянии Дамерау-Левенштейна не больше
+     * {@value SuggestionIndex#MAX_DISTANCE}. Индекс слоя строится при первом вызове
+     *
+     * @param word слово (регистр не важен)
+     * @param k    наибольшее количество подсказок
+     * @return ключи словаря, ближайшие первыми (при равном расстоянии — по алфавиту)
+     */
+    public List<String> suggest(String word, int k) {
+        String key = word.trim();
+        key = Tokenizer.fold(key, 0, key.length());
+        DictionaryStack dict = dictionary.get();
+
+        List<Map.Entry<String, Integer>> found;
+        if (dict.layerCount() == 1) {
+            found = dict.layer(0).getSuggestionIndex().suggest(key, k);
+        } else {
+            // одно и то же слово может найтись в нескольких слоях — оставляем наименьшее расстояние
+            Map<String, Integer> merged = new HashMap<>();
+            for (int i = 0; i < dict.layerCount(); i++) {
+                for (Map.Entry<String, Integer> e : dict.layer(i).getSuggestionIndex().suggest(key, k)) {
+                    merged.merge(e.getKey(), e.getValue(), Math::min);
+                }
+            }
+            found = new ArrayList<>(merged.entrySet());
+            found.sort(SuggestionIndex.BY_DISTANCE);
+        }
+
+        List<String> words = new ArrayList<>(Math.min(k, found.size()));
+        for (int i = 0; i < found.size() && i < k; i++) {
+            words.add(found.get(i).getKey());
+        }
+        return words;
     }
 
     /**
-     * Сохраняет неизвестные слова в файл output/unknown_words.txt в формате "word | "
-     * Сначала читаем уже имеющиеся записи и не добавляем дубли
+     * Включает журнал непереведённых слов: новые слова дописываются в файл в фоне
+     * (порциями или по таймеру) вместе с похожими словами словаря ({@link #suggest(String, int)}),
+     * уже собранные слова ставятся в очередь сразу.
+     * Повторный вызов закрывает прежний журнал
+     *
+     * @param file файл журнала в формате "word | "
+     * @throws IOException при ошибках чтения или записи файла
+     */
+    public synchronized void enableUnknownWordLog(Path file) throws IOException {
+        UnknownWordLog log = UnknownWordLog.open(file, word -> suggest(word, REPORT_SUGGESTIONS));
+        UnknownWordLog previous = unknownWordLog;
+        unknownWordLog = log;
+        if (previous != null) previous.close();
+        for (String word : unknownWords.words()) {
+            log.offer(word);
+        }
+    }
+
+    /**
+     * Сохраняет неизвестные слова в журнал ({@link #UNKNOWN_WORDS_FILE}, если журнал не был включён)
+     * Дописываются только слова, которых в файле ещё нет; файл целиком не перечитывается
      */
     public void saveUnknownWords() {
         if (unknownWords.isEmpty()) {
@@ -190,58 +668,72 @@ public class Translator {
         }
 
         try {
-            Path outDir = Paths.get("output");
-            if (!Files.exists(outDir)) {
-                Files.createDirectories(outDir);
-            }
-
-            Path outFile = outDir.resolve("unknown_words.txt");
-            Set<String> existing = new HashSet<>();
-
-            if (Files.exists(outFile)) {
-                List<String> lines = Files.readAllLines(outFile, StandardCharsets.UTF_8);
-                for (String line : lines) {
-                    String trimmed = line.trim();
-                    if (trimmed.isEmpty()) continue;
-                    String[] parts = trimmed.split("\\|", 2);
-                    if (parts.length > 0) {
-                        String w = parts[0].trim();
-                        if (!w.isEmpty()) existing.add(w.toLowerCase(Locale.ROOT));
-                    }
-                }
-            }
-
-            List<String> toAppend = new ArrayList<>();
-            for (String w : unknownWords) {
-                if (!existing.contains(w)) {
-                    toAppend.add(w + " | ");
+            UnknownWordLog log;
+            synchronized (this) {
+                if (unknownWordLog == null) {
+                    enableUnknownWordLog(UNKNOWN_WORDS_FILE);
                 }
+                log = unknownWordLog;
             }
+            log.flush();
 
-            if (!toAppend.isEmpty()) {
-                Files.write(outFile, toAppend, StandardCharsets.UTF_8,
-                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
-                System.out.println("Добавлено новых непереведённых слов: " + toAppend.size());
-                System.out.println("Файл с непереведёнными словами: " + outFile.toString());
+            long added = log.takeAppendedCount();
+            if (added > 0) {
+                System.out.println("Добавлено новых непереведённых слов: " + added);
+                System.out.println("Файл с непереведёнными словами: " + log.file().toString());
             } else {
                 System.out.println("Новые непереведённые слова отсутствуют (всё уже записано)");
             }
-
         } catch (IOException e) {
             System.err.println("Ошибка при сохранении непереведённых слов: " + e.getMessage());
         }
     }
 
     /**
-     * Вложенный класс-результат поиска совпадения
+     * Задача пакетного перевода диапазона строк [from, to).
+     * Диапазон делится пополам, пока не станет не больше порции
      */
-    private static class Match {
-        final String translationWithPunctuation;
-        final int wordCount;
+    private final class BatchTask extends RecursiveAction {
+        private final DictionaryStack dict;
+        private final List<String> lines;
+        private final String[] results;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        BatchTask(DictionaryStack dict, List<String> lines, String[] results, int from, int to, int chunkSize) {
+            this.dict = dict;
+            this.lines = lines;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
 
-        Match(String translationWithPunctuation, int wordCount) {
-            this.translationWithPunctuation = translationWithPunctuation;
-            this.wordCount = wordCount;
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                for (int i = from; i < to; i++) {
+                    results[i] = translateLine(lines.get(i), dict);
+                }
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            BatchTask left = new BatchTask(dict, lines, results, from, mid, chunkSize);
+            left.fork();
+            new BatchTask(dict, lines, results, mid, to, chunkSize).compute();
+            left.join();
         }
     }
+
+    /**
+     * Вложенный класс-результат поиска совпадения: состояние индекса и количество токенов.
+     * Переиспользуется в пределах одной строки, чтобы поиск не создавал объектов
+     */
+    private static final class Match {
+        int layer;
+        long state;
+        int wordCount;
+    }
 }
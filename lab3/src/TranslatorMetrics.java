@@ -0,0 +1,262 @@
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * TranslatorMetrics — метрики работы переводчика: сведения о загрузке словаря,
+ * задержки перевода строк (гистограмма с p50/p99/p999), количество строк и токенов,
+ * доля найденных фраз по длине совпадения и доля непереведённых слов
+ *
+ * Метрики включены всегда, поэтому запись сделана дешёвой: счётчики токенов копятся
+ * в {@link Counts} без синхронизации и переносятся в общие LongAdder один раз на строку
+ * (в потоковом режиме — порциями), а задержка строки — один инкремент в гистограмме
+ *
+ * Метрики доступны через JMX ({@link #registerMBean()}) и через периодический вывод
+ * сводки ({@link #startPeriodicDump(long, TimeUnit, PrintStream)})
+ */
+public class TranslatorMetrics implements TranslatorMetricsMBean {
+
+    /**
+     * Наибольшая длина совпадения (в токенах), учитываемая отдельно; более длинные
+     * совпадения учитываются вместе с ней
+     */
+    static final int MAX_TRACKED_LENGTH = 8;
+
+    private final Supplier<DictionaryStack> dictionary;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder lines = new LongAdder();
+    private final LongAdder tokens = new LongAdder();
+    private final LongAdder unmatched = new LongAdder();
+    private final LongAdder unknown = new LongAdder();
+    private final LongAdder[] matches = new LongAdder[MAX_TRACKED_LENGTH];
+
+    private ScheduledExecutorService dumper;
+
+    /**
+     * @param dictionary источник текущей версии словаря (для сведений о загрузке)
+     */
+    TranslatorMetrics(Supplier<DictionaryStack> dictionary) {
+        this.dictionary = dictionary;
+        for (int i = 0; i < MAX_TRACKED_LENGTH; i++) {
+            matches[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Учитывает загрузку словаря
+     */
+    void recordLoad() {
+        loads.increment();
+    }
+
+    /**
+     * Учитывает перевод одной строки
+     *
+     * @param nanos длительность перевода в наносекундах
+     */
+    void recordLine(long nanos) {
+        lines.increment();
+        latency.record(nanos);
+    }
+
+    /**
+     * Переносит накопленные счётчики токенов в общие и очищает их
+     */
+    void add(Counts counts) {
+        if (counts.tokens == 0) return;
+        tokens.add(counts.tokens);
+        if (counts.unmatched != 0) unmatched.add(counts.unmatched);
+        if (counts.unknown != 0) unknown.add(counts.unknown);
+        for (int i = 0; i < MAX_TRACKED_LENGTH; i++) {
+            if (counts.matches[i] != 0) matches[i].add(counts.matches[i]);
+        }
+        counts.clear();
+    }
+
+    @Override
+    public int getDictionaryEntries() {
+        return dictionary.get().size();
+    }
+
+    @Override
+    public double getDictionaryLoadMillis() {
+        return dictionary.get().loadNanos() / 1e6;
+    }
+
+    @Override
+    public long getDictionaryLoads() {
+        return loads.sum();
+    }
+
+    @Override
+    public long getLinesTranslated() {
+        return lines.sum();
+    }
+
+    @Override
+    public long getTokensTranslated() {
+        return tokens.sum();
+    }
+
+    @Override
+    public double getHitRate() {
+        long hits = 0;
+        for (LongAdder m : matches) hits += m.sum();
+        return ratio(hits, hits + unmatched.sum());
+    }
+
+    @Override
+    public double[] getHitRateByMatchLength() {
+        long[] counts = new long[MAX_TRACKED_LENGTH];
+        long positions = unmatched.sum();
+        for (int i = 0; i < MAX_TRACKED_LENGTH; i++) {
+            counts[i] = matches[i].sum();
+            positions += counts[i];
+        }
+        double[] rates = new double[MAX_TRACKED_LENGTH];
+        for (int i = 0; i < MAX_TRACKED_LENGTH; i++) {
+            rates[i] = ratio(counts[i], positions);
+        }
+        return rates;
+    }
+
+    @Override
+    public double getUnknownWordRate() {
+        return ratio(unknown.sum(), tokens.sum());
+    }
+
+    @Override
+    public double getLatencyMeanMicros() {
+        return latency.mean() / 1e3;
+    }
+
+    @Override
+    public double getLatencyP50Micros() {
+        return latency.percentile(0.5) / 1e3;
+    }
+
+    @Override
+    public double getLatencyP99Micros() {
+        return latency.percentile(0.99) / 1e3;
+    }
+
+    @Override
+    public double getLatencyP999Micros() {
+        return latency.percentile(0.999) / 1e3;
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        lines.reset();
+        tokens.reset();
+        unmatched.reset();
+        unknown.reset();
+        for (LongAdder m : matches) m.reset();
+    }
+
+    /**
+     * Возвращает сводку метрик в одну строку
+     */
+    public String dump() {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append(String.format(Locale.ROOT,
+                "словарь: %d записей, загрузка %.1f мс, загрузок %d; строк %d, токенов %d; "
+                        + "задержка мкс: среднее %.1f, p50 %.1f, p99 %.1f, p999 %.1f; "
+                        + "попадания %.3f, неизвестные %.3f; по длине:",
+                getDictionaryEntries(), getDictionaryLoadMillis(), getDictionaryLoads(),
+                getLinesTranslated(), getTokensTranslated(),
+                getLatencyMeanMicros(), getLatencyP50Micros(), getLatencyP99Micros(), getLatencyP999Micros(),
+                getHitRate(), getUnknownWordRate()));
+        double[] byLength = getHitRateByMatchLength();
+        for (int i = 0; i < byLength.length; i++) {
+            sb.append(' ').append(i + 1).append(i == byLength.length - 1 ? "+=" : "=")
+                    .append(String.format(Locale.ROOT, "%.3f", byLength[i]));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Регистрирует метрики в платформенном MBeanServer под именем lab3:type=Translator,name=&lt;n&gt;,
+     * где n — порядковый номер, чтобы несколько переводчиков в одной JVM не конфликтовали
+     *
+     * @return имя, под которым зарегистрирован MBean
+     * @throws JMException при ошибке регистрации
+     */
+    public ObjectName registerMBean() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (int n = 0; ; n++) {
+            ObjectName name = new ObjectName("lab3:type=Translator,name=" + n);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+                return name;
+            }
+        }
+    }
+
+    /**
+     * Запускает периодический вывод сводки метрик в фоновом потоке.
+     * Повторный вызов заменяет прежнее расписание
+     *
+     * @param period период вывода
+     * @param unit   единица измерения периода
+     * @param out    поток вывода
+     */
+    public synchronized void startPeriodicDump(long period, TimeUnit unit, PrintStream out) {
+        stopPeriodicDump();
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "translator-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> out.println("Метрики переводчика: " + dump()), period, period, unit);
+    }
+
+    /**
+     * Останавливает периодический вывод сводки
+     */
+    public synchronized void stopPeriodicDump() {
+        if (dumper == null) return;
+        dumper.shutdownNow();
+        dumper = null;
+    }
+
+    private static double ratio(long part, long whole) {
+        return whole == 0 ? 0 : (double) part / whole;
+    }
+
+    /**
+     * Счётчики токенов, накапливаемые одним потоком во время перевода
+     * Не потокобезопасны; переносятся в общие через {@link #add(Counts)}
+     */
+    static final class Counts {
+        int tokens;
+        int unmatched;
+        int unknown;
+        final int[] matches = new int[MAX_TRACKED_LENGTH];
+
+        /**
+         * Учитывает найденную фразу из {@code length} токенов
+         */
+        void matched(int length) {
+            matches[Math.min(length, MAX_TRACKED_LENGTH) - 1]++;
+        }
+
+        void clear() {
+            tokens = 0;
+            unmatched = 0;
+            unknown = 0;
+            Arrays.fill(matches, 0);
+        }
+    }
+}
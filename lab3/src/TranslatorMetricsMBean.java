@@ -0,0 +1,72 @@
+/**
+ * JMX-интерфейс метрик переводчика ({@link TranslatorMetrics})
+ * Времена — в микросекундах (перевод строки) и миллисекундах (загрузка словаря)
+ */
+public interface TranslatorMetricsMBean {
+
+    /**
+     * Количество записей в текущей версии словаря
+     */
+    int getDictionaryEntries();
+
+    /**
+     * Длительность загрузки текущей версии словаря, мс
+     */
+    double getDictionaryLoadMillis();
+
+    /**
+     * Количество загрузок словаря (первая загрузка и перезагрузки)
+     */
+    long getDictionaryLoads();
+
+    /**
+     * Количество переведённых строк ({@link Translator#translate(String)} и пакетный перевод)
+     */
+    long getLinesTranslated();
+
+    /**
+     * Количество обработанных токенов (без строк, взятых из кэша)
+     */
+    long getTokensTranslated();
+
+    /**
+     * Доля позиций текста, с которых нашлась фраза словаря
+     */
+    double getHitRate();
+
+    /**
+     * Доля позиций текста, с которых нашлась фраза из k токенов; элемент k-1 — для длины k,
+     * последний элемент объединяет все более длинные совпадения
+     */
+    double[] getHitRateByMatchLength();
+
+    /**
+     * Доля непереведённых слов среди обработанных токенов
+     */
+    double getUnknownWordRate();
+
+    /**
+     * Средняя задержка перевода строки, мкс
+     */
+    double getLatencyMeanMicros();
+
+    /**
+     * Медиана задержки перевода строки, мкс
+     */
+    double getLatencyP50Micros();
+
+    /**
+     * 99-й перцентиль задержки перевода строки, мкс
+     */
+    double getLatencyP99Micros();
+
+    /**
+     * 99.9-й перцентиль задержки перевода строки, мкс
+     */
+    double getLatencyP999Micros();
+
+    /**
+     * Сбрасывает счётчики переводов и гистограмму задержек (сведения о словаре сохраняются)
+     */
+    void reset();
+}
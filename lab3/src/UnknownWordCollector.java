@@ -0,0 +1,93 @@
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * UnknownWordCollector — потокобезопасный сборщик непереведённых слов со счётчиком встреч
+ * Запись слова на горячем пути — поиск в ConcurrentHashMap и инкремент LongAdder,
+ * без общих блокировок: одновременные промахи разных потоков не мешают друг другу
+ */
+public class UnknownWordCollector {
+
+    /**
+     * Порядок "самые частые первыми", при равенстве — по алфавиту
+     */
+    private static final Comparator<Map.Entry<String, Long>> BY_COUNT_DESC =
+            Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+    private final ConcurrentHashMap<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+    /**
+     * Учитывает одну встречу слова
+     *
+     * @param word слово в нижнем регистре
+     * @return true, если слово встретилось впервые
+     */
+    public boolean record(String word) {
+        LongAdder counter = counts.get(word);
+        boolean first = false;
+        if (counter == null) {
+            LongAdder fresh = new LongAdder();
+            counter = counts.putIfAbsent(word, fresh);
+            if (counter == null) {
+                counter = fresh;
+                first = true;
+            }
+        }
+        counter.increment();
+        return first;
+    }
+
+    /**
+     * Возвращает количество встреч слова (0, если слово не встречалось)
+     */
+    public long count(String word) {
+        LongAdder counter = counts.get(word);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Возвращает отсортированный снимок собранных слов
+     */
+    public Set<String> words() {
+        return Collections.unmodifiableSet(new TreeSet<>(counts.keySet()));
+    }
+
+    /**
+     * Возвращает {@code k} самых частых слов с их счётчиками, самые частые первыми
+     *
+     * @param k количество слов (>= 0)
+     * @return список пар "слово -> количество встреч"
+     */
+    public List<Map.Entry<String, Long>> top(int k) {
+        if (k <= 0) return Collections.emptyList();
+
+        // куча из k элементов: в корне — наименее частое из отобранных
+        PriorityQueue<Map.Entry<String, Long>> heap = new PriorityQueue<>(k + 1, BY_COUNT_DESC.reversed());
+        for (Map.Entry<String, LongAdder> e : counts.entrySet()) {
+            heap.offer(new AbstractMap.SimpleImmutableEntry<>(e.getKey(), e.getValue().sum()));
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+
+        List<Map.Entry<String, Long>> result = new ArrayList<>(heap);
+        result.sort(BY_COUNT_DESC);
+        return result;
+    }
+
+    /**
+     * Возвращает true, если ни одного слова не собрано
+     */
+    public boolean isEmpty() {
+        return counts.isEmpty();
+    }
+}
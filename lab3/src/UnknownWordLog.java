@@ -0,0 +1,377 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * UnknownWordLog — журнал непереведённых слов в файле формата "word | " (только дописывание)
+ * Файл читается один раз при открытии, чтобы узнать уже записанные слова; дальше в памяти
+ * хранится множество записанных слов, и новое слово просто дописывается в конец файла.
+ * Поэтому стоимость сохранения зависит от количества новых слов, а не от размера файла
+ *
+ * Новые слова копятся в очереди и сбрасываются в файл фоновым потоком — когда их набралось
+ * {@link #FLUSH_WORDS} или раз в {@link #FLUSH_MILLIS} мс, так что при аварийном завершении
+ * теряется не больше последнего интервала
+ *
+ * Под словом, если для него нашлись похожие слова словаря, пишется строка-комментарий
+ * "#   ~ похожее, похожее" — подсказка при заполнении перевода; словарь такие строки пропускает.
+ * Подсказки считаются в фоновом потоке, а не при переводе
+ *
+ * Если файл дописывали другие процессы или его правили вручную и в нём накопились повторы,
+ * он уплотняется: для каждого слова остаётся первая строка (вместе с переводом,
+ * если его уже вписали, и подсказками под ней), пустые строки убираются. Файл заменяется атомарно.
+ * Проверка выполняется при открытии и затем фоновым потоком каждый раз, когда длина файла
+ * расходится с записанным этим журналом (слова из чужих строк тоже считаются записанными).
+ * Строки, которые другой процесс допишет во время замены файла, теряются
+ */
+final class UnknownWordLog implements Closeable {
+
+    /**
+     * Количество новых слов, после которого сброс запускается сразу
+     */
+    static final int FLUSH_WORDS = 256;
+
+    /**
+     * Период фонового сброса, мс
+     */
+    static final long FLUSH_MILLIS = 2000;
+
+    /**
+     * Уплотнять файл, если лишних строк не меньше этого количества и не меньше половины файла
+     */
+    private static final int COMPACT_MIN_REDUNDANT = 256;
+
+    /**
+     * Сколько при закрытии ждать сброса, уже начатого фоновым потоком, мс
+     */
+    private static final long CLOSE_WAIT_MILLIS = 10_000;
+
+    private final Path file;
+    private final Function<String, List<String>> suggester;
+    private final Set<String> known = ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedQueue<String> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final LongAdder appended = new LongAdder();
+    // значение appended, уже возвращённое takeAppendedCount()
+    private final AtomicLong reported = new AtomicLong();
+    private final ScheduledExecutorService flusher;
+
+    // запись в файл — под блокировкой writeLock
+    private final Object writeLock = new Object();
+    private FileChannel channel;
+    // длина файла после последней своей записи: иное значение означает чужие изменения
+    private long expectedSize;
+
+    private UnknownWordLog(Path file, Function<String, List<String>> suggester) {
+        this.file = file;
+        this.suggester = suggester;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "unknown-words-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Открывает журнал: читает уже записанные слова, при необходимости уплотняет файл
+     * и запускает фоновый сброс
+     *
+     * @param file      путь к файлу журнала (каталог создаётся при необходимости)
+     * @param suggester похожие слова словаря для подсказки под словом
+     * @throws IOException при ошибках чтения или записи файла
+     */
+    static UnknownWordLog open(Path file, Function<String, List<String>> suggester) throws IOException {
+        UnknownWordLog log = new UnknownWordLog(file, suggester);
+        try {
+            log.load();
+        } catch (IOException e) {
+            log.flusher.shutdownNow();
+            throw e;
+        }
+        log.flusher.scheduleWithFixedDelay(log::maintainQuietly, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+        return log;
+    }
+
+    private void load() throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+
+        synchronized (writeLock) {
+            compactIfRedundant();
+            openChannel();
+        }
+    }
+
+    private void openChannel() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        expectedSize = channel.size();
+    }
+
+    /**
+     * Читает файл, добавляет его слова к уже записанным и уплотняет файл,
+     * если повторов набралось достаточно
+     *
+     * @return true, если файл был переписан
+     */
+    private boolean compactIfRedundant() throws IOException {
+        if (!Files.exists(file)) return false;
+        int lines = 0;
+        Set<String> words = new HashSet<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (isComment(line)) continue;
+                lines++;
+                String word = wordOf(line);
+                if (word != null && words.add(word)) known.add(word);
+            }
+        }
+        int redundant = lines - words.size();
+        if (redundant >= COMPACT_MIN_REDUNDANT && redundant * 2 >= lines) {
+            compact();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Если файл изменили не через этот журнал, перечитывает его и при необходимости уплотняет
+     */
+    void checkExternalChanges() throws IOException {
+        synchronized (writeLock) {
+            if (channel.size() == expectedSize) return;
+            if (compactIfRedundant()) {
+                // после замены канал указывает на старый файл
+                channel.close();
+                openChannel();
+            } else {
+                expectedSize = channel.size();
+            }
+        }
+    }
+
+    /**
+     * Учитывает непереведённое слово: если его ещё нет в файле, ставит в очередь на запись
+     *
+     * @param word слово в нижнем регистре
+     */
+    void offer(String word) {
+        if (!known.add(word)) return;
+        pending.add(word);
+        if (pendingCount.incrementAndGet() >= FLUSH_WORDS && flushScheduled.compareAndSet(false, true)) {
+            try {
+                flusher.execute(() -> {
+                    flushScheduled.set(false);
+                    flushQuietly();
+                });
+            } catch (RejectedExecutionException e) {
+                // журнал закрывается: слова из очереди допишет close()
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Дописывает в файл все слова из очереди
+     *
+     * @return сколько слов дописано
+     * @throws IOException при ошибке записи (слова возвращаются в очередь, файл — к прежней длине)
+     */
+    int flush() throws IOException {
+        List<String> batch = new ArrayList<>();
+        String word;
+        while ((word = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            batch.add(word);
+        }
+        if (batch.isEmpty()) return 0;
+
+        boolean written = false;
+        try {
+            // подсказки считаются до блокировки: первый вызов строит индекс словаря,
+            // и другие потоки, пишущие в журнал, не должны его ждать
+            String text = format(batch);
+            synchronized (writeLock) {
+                append(text);
+            }
+            written = true;
+        } finally {
+            // при любой ошибке (в том числе в подсказках) слова не теряются
+            if (!written) {
+                pending.addAll(batch);
+                pendingCount.addAndGet(batch.size());
+            }
+        }
+        appended.add(batch.size());
+        return batch.size();
+    }
+
+    /**
+     * Строки журнала для пакета слов: "word | " и, если есть, подсказки под ним
+     */
+    private String format(List<String> batch) {
+        String newline = System.lineSeparator();
+        StringBuilder text = new StringBuilder();
+        for (String w : batch) {
+            text.append(w).append(" | ").append(newline);
+            List<String> similar = suggester.apply(w);
+            if (!similar.isEmpty()) {
+                text.append("#   ~ ").append(String.join(", ", similar)).append(newline);
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Дописывает текст пакета целиком. Если запись оборвалась на середине, файл обрезается
+     * до прежней длины, чтобы повторная попытка не записала часть слов дважды
+     */
+    private void append(String text) throws IOException {
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(text);
+        long before = channel.size();
+        long expectedBefore = expectedSize;
+        try {
+            while (bytes.hasRemaining()) {
+                expectedSize += channel.write(bytes);
+            }
+        } catch (IOException e) {
+            expectedSize = expectedBefore;
+            try {
+                channel.truncate(before);
+            } catch (IOException truncateError) {
+                e.addSuppressed(truncateError);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Периодическая задача: проверка чужих изменений файла и сброс очереди
+     */
+    private void maintainQuietly() {
+        try {
+            checkExternalChanges();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ошибка при уплотнении файла непереведённых слов: " + e.getMessage());
+        }
+        flushQuietly();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException | RuntimeException e) {
+            // периодическая задача не должна остановиться из-за одной ошибки
+            System.err.println("Ошибка при сохранении непереведённых слов: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Возвращает, сколько слов дописано в файл с предыдущего вызова
+     * (при первом вызове — с момента открытия журнала)
+     */
+    long takeAppendedCount() {
+        long total = appended.sum();
+        return total - reported.getAndSet(total);
+    }
+
+    /**
+     * Возвращает путь к файлу журнала
+     */
+    Path file() {
+        return file;
+    }
+
+    /**
+     * Переписывает файл без повторов: для каждого слова остаётся первая строка
+     * и следующие за ней комментарии
+     */
+    private void compact() throws IOException {
+        Path target = file.toAbsolutePath();
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            Set<String> seen = new HashSet<>();
+            boolean keep = false;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (isComment(line)) {
+                    if (!keep) continue;
+                } else {
+                    String word = wordOf(line);
+                    keep = word != null && seen.add(word);
+                    if (!keep) continue;
+                }
+                out.write(line);
+                out.newLine();
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static boolean isComment(String line) {
+        return line.trim().startsWith("#");
+    }
+
+    /**
+     * Извлекает слово из строки журнала "word | перевод" (null для пустых строк и комментариев)
+     */
+    private static String wordOf(String line) {
+        if (isComment(line)) return null;
+        int bar = line.indexOf('|');
+        String word = (bar < 0 ? line : line.substring(0, bar)).trim();
+        return word.isEmpty() ? null : Tokenizer.fold(word, 0, word.length());
+    }
+
+    /**
+     * Останавливает фоновый сброс, дописывает оставшиеся слова и закрывает файл
+     */
+    @Override
+    public void close() throws IOException {
+        // без прерывания: прерывание потока, пишущего в FileChannel, закрыло бы канал
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(CLOSE_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                System.err.println("Фоновый сброс непереведённых слов не завершился за " + CLOSE_WAIT_MILLIS + " мс");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            flush();
+        } finally {
+            synchronized (writeLock) {
+                channel.close();
+            }
+        }
+    }
+}
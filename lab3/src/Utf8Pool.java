@@ -0,0 +1,224 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Utf8Pool — пул строк в одном массиве байт UTF-8
+ * Строки получают последовательные номера и хранятся подряд: на строку приходится
+ * только её байты и одно смещение, без объекта String и массива символов.
+ * Строку можно сравнить с текстом или дописать в StringBuilder без создания объектов
+ *
+ * Кодирование совпадает с String.getBytes(UTF_8): одиночные суррогаты заменяются на '?'
+ */
+final class Utf8Pool {
+
+    private byte[] data;
+    private int dataLength;
+    private int[] offsets;
+    private int count;
+
+    Utf8Pool(int expectedStrings) {
+        int capacity = Math.max(16, expectedStrings);
+        this.data = new byte[capacity * 8];
+        this.offsets = new int[capacity + 1];
+    }
+
+    /**
+     * Добавляет строку в пул
+     *
+     * @return номер строки
+     */
+    int add(CharSequence s) {
+        int length = encodedLength(s);
+        if (dataLength + length > data.length) {
+            long wanted = Math.max((long) data.length * 2, (long) dataLength + length);
+            if (wanted > Integer.MAX_VALUE - 8) {
+                if ((long) dataLength + length > Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("Пул строк превышает 2 ГБ");
+                }
+                wanted = Integer.MAX_VALUE - 8;
+            }
+            data = Arrays.copyOf(data, (int) wanted);
+        }
+        if (count + 1 == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        dataLength = encode(s, data, dataLength);
+        offsets[++count] = dataLength;
+        return count - 1;
+    }
+
+    /**
+     * Возвращает количество строк в пуле
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * Возвращает строку с номером {@code id} (создаёт объект String)
+     */
+    String get(int id) {
+        return new String(data, offsets[id], offsets[id + 1] - offsets[id], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Дописывает строку с номером {@code id} в {@code out} без промежуточных объектов
+     */
+    void appendTo(int id, StringBuilder out) {
+        int from = offsets[id];
+        int to = offsets[id + 1];
+        out.ensureCapacity(out.length() + (to - from));
+        for (int i = from; i < to; ) {
+            int b = data[i];
+            if (b >= 0) {
+                out.append((char) b);
+                i++;
+            } else if ((b & 0xE0) == 0xC0) {
+                out.append((char) (((b & 0x1F) << 6) | (data[i + 1] & 0x3F)));
+                i += 2;
+            } else if ((b & 0xF0) == 0xE0) {
+                out.append((char) (((b & 0x0F) << 12) | ((data[i + 1] & 0x3F) << 6) | (data[i + 2] & 0x3F)));
+                i += 3;
+            } else {
+                out.appendCodePoint(((b & 0x07) << 18) | ((data[i + 1] & 0x3F) << 12)
+                        | ((data[i + 2] & 0x3F) << 6) | (data[i + 3] & 0x3F));
+                i += 4;
+            }
+        }
+    }
+
+    /**
+     * Сравнивает строку с номером {@code id} с текстом, кодируя текст на лету
+     */
+    boolean contentEquals(int id, CharSequence s) {
+        int p = offsets[id];
+        int end = offsets[id + 1];
+        int n = s.length();
+        for (int i = 0; i < n; i++) {
+            int cp = s.charAt(i);
+            if (Character.isHighSurrogate((char) cp) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                cp = Character.toCodePoint((char) cp, s.charAt(++i));
+            } else if (Character.isSurrogate((char) cp)) {
+                cp = '?';
+            }
+            if (cp < 0x80) {
+                if (p >= end || data[p++] != (byte) cp) return false;
+            } else if (cp < 0x800) {
+                if (p + 1 >= end
+                        || data[p++] != (byte) (0xC0 | (cp >> 6))
+                        || data[p++] != (byte) (0x80 | (cp & 0x3F))) return false;
+            } else if (cp < 0x10000) {
+                if (p + 2 >= end
+                        || data[p++] != (byte) (0xE0 | (cp >> 12))
+                        || data[p++] != (byte) (0x80 | ((cp >> 6) & 0x3F))
+                        || data[p++] != (byte) (0x80 | (cp & 0x3F))) return false;
+            } else {
+                if (p + 3 >= end
+                        || data[p++] != (byte) (0xF0 | (cp >> 18))
+                        || data[p++] != (byte) (0x80 | ((cp >> 12) & 0x3F))
+                        || data[p++] != (byte) (0x80 | ((cp >> 6) & 0x3F))
+                        || data[p++] != (byte) (0x80 | (cp & 0x3F))) return false;
+            }
+        }
+        return p == end;
+    }
+
+    /**
+     * Возвращает байты строки с номером {@code id} (копия)
+     */
+    byte[] bytes(int id) {
+        return Arrays.copyOfRange(data, offsets[id], offsets[id + 1]);
+    }
+
+    /**
+     * Освобождает неиспользуемый запас массивов после загрузки
+     */
+    void trim() {
+        data = Arrays.copyOf(data, dataLength);
+        offsets = Arrays.copyOf(offsets, count + 1);
+    }
+
+    /**
+     * Дописывает в {@code out} строку, закодированную в UTF-8 в {@code buffer[from, to)}
+     * (тот же разбор, что и в {@link #appendTo(int, StringBuilder)}, для отображённых в память файлов;
+     * файл мог быть повреждён, поэтому неполные и недопустимые последовательности заменяются на U+FFFD)
+     */
+    static void appendDecoded(ByteBuffer buffer, int from, int to, StringBuilder out) {
+        out.ensureCapacity(out.length() + (to - from));
+        for (int i = from; i < to; ) {
+            int b = buffer.get(i);
+            if (b >= 0) {
+                out.append((char) b);
+                i++;
+            } else if ((b & 0xE0) == 0xC0 && i + 1 < to) {
+                out.append((char) (((b & 0x1F) << 6) | (buffer.get(i + 1) & 0x3F)));
+                i += 2;
+            } else if ((b & 0xF0) == 0xE0 && i + 2 < to) {
+                out.append((char) (((b & 0x0F) << 12) | ((buffer.get(i + 1) & 0x3F) << 6)
+                        | (buffer.get(i + 2) & 0x3F)));
+                i += 3;
+            } else if ((b & 0xF8) == 0xF0 && i + 3 < to) {
+                int cp = ((b & 0x07) << 18) | ((buffer.get(i + 1) & 0x3F) << 12)
+                        | ((buffer.get(i + 2) & 0x3F) << 6) | (buffer.get(i + 3) & 0x3F);
+                if (cp <= Character.MAX_CODE_POINT) {
+                    out.appendCodePoint(cp);
+                } else {
+                    out.append('\uFFFD');
+                }
+                i += 4;
+            } else {
+                // повреждённый файл: байт не начинает полную последовательность
+                out.append('\uFFFD');
+                i++;
+            }
+        }
+    }
+
+    private static int encodedLength(CharSequence s) {
+        int length = 0;
+        int n = s.length();
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static int encode(CharSequence s, byte[] dst, int p) {
+        int n = s.length();
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                dst[p++] = (byte) c;
+            } else if (c < 0x800) {
+                dst[p++] = (byte) (0xC0 | (c >> 6));
+                dst[p++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                dst[p++] = (byte) (0xF0 | (cp >> 18));
+                dst[p++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                dst[p++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                dst[p++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                dst[p++] = '?';
+            } else {
+                dst[p++] = (byte) (0xE0 | (c >> 12));
+                dst[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                dst[p++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return p;
+    }
+}